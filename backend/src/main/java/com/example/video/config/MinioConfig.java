@@ -1,9 +1,11 @@
 package com.example.video.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class MinioConfig {
@@ -11,6 +13,12 @@ public class MinioConfig {
     @Value("${minio.url}")
     private String url;
 
+    @Value("${minio.public-url:${minio.url}}")
+    private String publicUrl;
+
+    @Value("${minio.region:us-east-1}")
+    private String region;
+
     @Value("${minio.access-key}")
     private String accessKey;
 
@@ -18,10 +26,32 @@ public class MinioConfig {
     private String secretKey;
 
     @Bean
+    @Primary
     public MinioClient minioClient() {
         return MinioClient.builder()
                 .endpoint(url)
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    @Bean
+    public MinioPartClient minioPartClient() {
+        return new MinioPartClient(MinioAsyncClient.builder()
+                .endpoint(url)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
+
+    /**
+     * Signs presigned URLs for the endpoint clients can reach. The signature covers the host, so
+     * this cannot be the internal client; the fixed region keeps signing free of network calls.
+     */
+    @Bean
+    public MinioClient presignMinioClient() {
+        return MinioClient.builder()
+                .endpoint(publicUrl)
+                .region(region)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
 }
@@ -0,0 +1,84 @@
+package com.example.video.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ListPartsResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exposes the individual S3 multipart upload calls, which the MinIO client only uses internally
+ * from putObject. With them a caller can upload parts as it reads them, several at a time,
+ * instead of handing putObject a stream of known length.
+ */
+public class MinioPartClient extends MinioAsyncClient {
+
+    public MinioPartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createUpload(String bucket, String objectName, String contentType) {
+        try {
+            Multimap<String, String> headers = HashMultimap.create();
+            headers.put("Content-Type", contentType);
+            return createMultipartUploadAsync(bucket, null, objectName, headers, null)
+                    .join().result().uploadId();
+        } catch (Exception e) {
+            throw new RuntimeException("Error starting multipart upload to MinIO", e);
+        }
+    }
+
+    /**
+     * Uploads the first {@code length} bytes of {@code data} as part {@code partNumber}. The
+     * array must not be modified until the returned future completes.
+     */
+    public CompletableFuture<Part> uploadPart(String bucket, String objectName, String uploadId,
+                                              int partNumber, byte[] data, int length) {
+        try {
+            return uploadPartAsync(bucket, null, objectName, data, length, uploadId, partNumber, null, null)
+                    .thenApply(response -> new Part(partNumber, response.etag()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Parts uploaded so far, in part-number order, following the listing across pages.
+     */
+    public List<Part> listParts(String bucket, String objectName, String uploadId) {
+        try {
+            List<Part> parts = new ArrayList<>();
+            Integer marker = null;
+            while (true) {
+                ListPartsResponse response = listPartsAsync(bucket, null, objectName, null, marker, uploadId, null, null).join();
+                parts.addAll(response.result().partList());
+                if (!response.result().isTruncated()) {
+                    return parts;
+                }
+                marker = response.result().nextPartNumberMarker();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error listing multipart upload parts in MinIO", e);
+        }
+    }
+
+    public void complete(String bucket, String objectName, String uploadId, Part[] parts) {
+        try {
+            completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts, null, null).join();
+        } catch (Exception e) {
+            throw new RuntimeException("Error completing multipart upload to MinIO", e);
+        }
+    }
+
+    public void abort(String bucket, String objectName, String uploadId) {
+        try {
+            abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).join();
+        } catch (Exception e) {
+            throw new RuntimeException("Error aborting multipart upload to MinIO", e);
+        }
+    }
+}
@@ -7,9 +7,7 @@ import com.example.video.dto.UserCardResponse;
 import com.example.video.dto.UserProfile;
 import com.example.video.dto.VideoFeedItem;
 import com.example.video.model.Report;
-import com.example.video.model.User;
-import com.example.video.model.UserRole;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -28,9 +26,6 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     // ==================== REPORT ====================
 
     @PostMapping("/report")
@@ -216,20 +211,10 @@ public class AdminController {
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 
     private boolean isAdmin(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(user -> user.getRole() == UserRole.admin || user.getRole() == UserRole.moderator)
-                .orElse(false);
+        return UserPrincipal.isModerator(authentication);
     }
 }
@@ -1,14 +1,24 @@
 package com.example.video.controller;
 
+import com.example.video.model.AiAnalysisJob;
+import com.example.video.security.UserPrincipal;
+import com.example.video.service.AiAnalysisService;
 import com.example.video.service.AiDataExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/admin/ai")
@@ -17,14 +27,50 @@ public class AiDataExportController {
     @Autowired
     private AiDataExportService aiDataExportService;
 
+    @Autowired
+    private AiAnalysisService aiAnalysisService;
+
     @GetMapping("/force-export")
-    public ResponseEntity<Map<String, String>> forceExport() {
-        // Run the export manually on demand
-        aiDataExportService.exportDataForAiTraining();
-        
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("message", "AI features exported successfully to /app/data/data_raw/");
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> forceExport() {
+        // Start the export in the background; progress is reported by /export-status
+        boolean started = aiDataExportService.startExport();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", started ? "accepted" : "already_running");
+        response.put("message", started
+                ? "AI feature export started, check /api/admin/ai/export-status for progress"
+                : "An AI feature export is already running");
+        response.put("export", aiDataExportService.getExportStatus());
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(response);
+    }
+
+    @GetMapping("/export-status")
+    public ResponseEntity<Map<String, Object>> exportStatus() {
+        return ResponseEntity.ok(aiDataExportService.getExportStatus());
+    }
+
+    /**
+     * Queues a re-analysis of one video; backfills default to the low lane so uploads go first.
+     */
+    @PostMapping("/analyze/{videoId}")
+    public ResponseEntity<Map<String, Object>> reanalyze(
+            @PathVariable UUID videoId,
+            @RequestParam(defaultValue = AiAnalysisService.PRIORITY_LOW) String priority,
+            Authentication authentication) {
+        if (!UserPrincipal.isModerator(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin access required"));
+        }
+        try {
+            AiAnalysisJob job = aiAnalysisService.analyzeVideo(videoId, priority);
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "queued");
+            response.put("jobId", job.getId());
+            response.put("priority", job.getPriority());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
     }
 }
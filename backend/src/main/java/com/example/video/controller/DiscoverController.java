@@ -3,8 +3,7 @@ package com.example.video.controller;
 import com.example.video.dto.DiscoverResponse;
 import com.example.video.dto.HashtagDetailResponse;
 import com.example.video.dto.SearchResponse;
-import com.example.video.model.User;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.DiscoverService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,9 +20,6 @@ public class DiscoverController {
     @Autowired
     private DiscoverService discoverService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @GetMapping
     public ResponseEntity<DiscoverResponse> getDiscover(Authentication authentication) {
         return ResponseEntity.ok(discoverService.getDiscover(getCurrentUserId(authentication)));
@@ -48,11 +44,6 @@ public class DiscoverController {
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 }
@@ -1,8 +1,7 @@
 package com.example.video.controller;
 
 import com.example.video.dto.VideoFeedItem;
-import com.example.video.model.User;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.RecommendationService;
 import com.example.video.service.SocialService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,9 +25,6 @@ public class FeedController {
     @Autowired
     private SocialService socialService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     /**
      * Get recommended video feed with weighted scoring
      * Score = (Views × 1) + (Likes × 3) + (Shares × 5) - (Decay_Time) + Random
@@ -63,11 +59,6 @@ public class FeedController {
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 }
@@ -0,0 +1,187 @@
+package com.example.video.controller;
+
+import com.example.video.security.UserPrincipal;
+import com.example.video.service.AiAnalysisService;
+import com.example.video.service.AiCircuitBreaker;
+import com.example.video.service.CommentPageCache;
+import com.example.video.service.InteractionLoggerService;
+import com.example.video.service.NotificationFanOut;
+import com.example.video.service.PresignedUrlCache;
+import com.example.video.service.PredictionScoreCache;
+import com.example.video.service.RankingModel;
+import com.example.video.service.TranscodeService;
+import com.example.video.service.TransferBufferPool;
+import com.example.video.service.UserPrincipalCache;
+import com.example.video.service.VideoMetadataCache;
+import com.example.video.service.VideoSegmentCache;
+import com.example.video.service.VideoStatsCounterBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    @Autowired
+    private RankingModel rankingModel;
+
+    @Autowired
+    private PredictionScoreCache predictionScoreCache;
+
+    @Autowired
+    private AiCircuitBreaker aiCircuitBreaker;
+
+    @Autowired
+    private VideoStatsCounterBuffer videoStatsCounterBuffer;
+
+    @Autowired
+    private InteractionLoggerService interactionLoggerService;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    @Autowired
+    private VideoSegmentCache videoSegmentCache;
+
+    @Autowired
+    private TransferBufferPool transferBufferPool;
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
+
+    @Autowired
+    private TranscodeService transcodeService;
+
+    @Autowired
+    private AiAnalysisService aiAnalysisService;
+
+    @Autowired
+    private CommentPageCache commentPageCache;
+
+    @Autowired
+    private NotificationFanOut notificationFanOut;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @GetMapping({"/ai-client", "/ranking-model"})
+    public ResponseEntity<?> getRankingModelMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(rankingModel.getStats());
+    }
+
+    @GetMapping("/prediction-cache")
+    public ResponseEntity<?> getPredictionCacheMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(predictionScoreCache.getStats());
+    }
+
+    @GetMapping("/ai-breaker")
+    public ResponseEntity<?> getAiBreakerMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(aiCircuitBreaker.getStats());
+    }
+
+    @GetMapping("/video-stats-buffer")
+    public ResponseEntity<?> getVideoStatsBufferMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(videoStatsCounterBuffer.getStats());
+    }
+
+    @GetMapping("/interaction-log")
+    public ResponseEntity<?> getInteractionLogMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(interactionLoggerService.getStats());
+    }
+
+    @GetMapping("/video-metadata-cache")
+    public ResponseEntity<?> getVideoMetadataCacheMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(videoMetadataCache.getStats());
+    }
+
+    @GetMapping("/video-segment-cache")
+    public ResponseEntity<?> getVideoSegmentCacheMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(videoSegmentCache.getStats());
+    }
+
+    @GetMapping("/stream-transfer-buffers")
+    public ResponseEntity<?> getTransferBufferMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(transferBufferPool.getStats());
+    }
+
+    @GetMapping("/presigned-urls")
+    public ResponseEntity<?> getPresignedUrlMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(presignedUrlCache.getStats());
+    }
+
+    @GetMapping("/transcoding")
+    public ResponseEntity<?> getTranscodingMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(transcodeService.getStats());
+    }
+
+    @GetMapping("/ai-analysis")
+    public ResponseEntity<?> getAiAnalysisMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(aiAnalysisService.getStats());
+    }
+
+    @GetMapping("/comment-page-cache")
+    public ResponseEntity<?> getCommentPageCacheMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(commentPageCache.getStats());
+    }
+
+    @GetMapping("/notification-fan-out")
+    public ResponseEntity<?> getNotificationFanOutMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(notificationFanOut.getStats());
+    }
+
+    @GetMapping("/principal-cache")
+    public ResponseEntity<?> getPrincipalCacheMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+        return ResponseEntity.ok(userPrincipalCache.getStats());
+    }
+
+    private boolean isAdmin(Authentication authentication) {
+        return UserPrincipal.isModerator(authentication);
+    }
+}
@@ -5,10 +5,8 @@ import com.example.video.dto.ModerationQueueResponse;
 import com.example.video.dto.SceneDetailResponse;
 import com.example.video.model.AiAnalysisJob;
 import com.example.video.model.Tag;
-import com.example.video.model.User;
-import com.example.video.model.UserRole;
 import com.example.video.repository.AiAnalysisJobRepository;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.ModerationService;
 import com.example.video.service.TagService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +33,6 @@ public class ModerationController {
     @Autowired
     private AiAnalysisJobRepository aiJobRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
     // ==================== STATS ====================
 
     @GetMapping("/stats")
@@ -208,20 +203,10 @@ public class ModerationController {
     // ==================== HELPERS ====================
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 
     private boolean isModerator(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(user -> user.getRole() == UserRole.admin || user.getRole() == UserRole.moderator)
-                .orElse(false);
+        return UserPrincipal.isModerator(authentication);
     }
 }
@@ -1,8 +1,7 @@
 package com.example.video.controller;
 
 import com.example.video.dto.NotificationResponse;
-import com.example.video.model.User;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,9 +20,6 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @GetMapping
     public ResponseEntity<?> getNotifications(
             @RequestParam(defaultValue = "0") int page,
@@ -70,11 +66,6 @@ public class NotificationController {
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 }
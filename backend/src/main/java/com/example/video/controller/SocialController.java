@@ -2,8 +2,7 @@ package com.example.video.controller;
 
 import com.example.video.dto.CommentRequest;
 import com.example.video.dto.CommentResponse;
-import com.example.video.model.User;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.SocialService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -23,9 +22,6 @@ public class SocialController {
     @Autowired
     private SocialService socialService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     // ==================== LIKE ====================
 
     @PostMapping("/like/{videoId}")
@@ -74,13 +70,30 @@ public class SocialController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * With {@code cursor} and/or {@code limit}, a page of the video's comments; pass the returned
+     * nextCursor as {@code cursor} for the next. Without either, the full list older clients expect.
+     */
     @GetMapping("/comments/{videoId}")
-    public ResponseEntity<List<CommentResponse>> getComments(
+    public ResponseEntity<?> getComments(
             @PathVariable UUID videoId,
-            @RequestParam(defaultValue = "false") boolean nested) {
-        
-        List<CommentResponse> comments = socialService.getComments(videoId, nested);
-        return ResponseEntity.ok(comments);
+            @RequestParam(defaultValue = "false") boolean nested,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(socialService.getComments(videoId, nested));
+        }
+        try {
+            return ResponseEntity.ok(socialService.getCommentPage(videoId, nested, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/comment/{commentId}/replies")
+    public ResponseEntity<List<CommentResponse>> getReplies(@PathVariable UUID commentId) {
+        return ResponseEntity.ok(socialService.getReplies(commentId));
     }
 
     @DeleteMapping("/comment/{commentId}")
@@ -191,11 +204,6 @@ public class SocialController {
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 }
@@ -0,0 +1,127 @@
+package com.example.video.controller;
+
+import com.example.video.dto.UploadSessionRequest;
+import com.example.video.model.UploadSession;
+import com.example.video.model.Video;
+import com.example.video.security.UserPrincipal;
+import com.example.video.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable upload protocol: open a session, PUT numbered parts (any order, in parallel, retried
+ * as needed), then complete it to create the video. GET reports which parts are already stored.
+ * Every call needs an authenticated user; sessions are only visible to their owner.
+ */
+@RestController
+@RequestMapping("/api/videos/uploads")
+@CrossOrigin(origins = "*")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> openSession(
+            @RequestBody UploadSessionRequest request,
+            Authentication authentication) {
+        String username = getUsername(authentication);
+        if (username == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        try {
+            UploadSession session = uploadSessionService.open(
+                    username,
+                    request.getTitle(),
+                    request.getDescription(),
+                    request.getFilename(),
+                    request.getContentType(),
+                    request.getTotalSize());
+            return ResponseEntity.ok(uploadSessionService.toResponse(session, List.of()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{sessionId}/parts/{partNumber}")
+    public ResponseEntity<Map<String, Object>> uploadPart(
+            @PathVariable UUID sessionId,
+            @PathVariable int partNumber,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        String username = getUsername(authentication);
+        if (username == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        try {
+            String etag = uploadSessionService.uploadPart(
+                    sessionId, username, partNumber,
+                    request.getInputStream(), request.getContentLengthLong());
+            return ResponseEntity.ok(Map.of("partNumber", partNumber, "etag", etag));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<Map<String, Object>> getStatus(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        String username = getUsername(authentication);
+        if (username == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        try {
+            return ResponseEntity.ok(uploadSessionService.getStatus(sessionId, username));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<?> complete(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        String username = getUsername(authentication);
+        if (username == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        try {
+            Video video = uploadSessionService.complete(sessionId, username);
+            return ResponseEntity.ok(video);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Map<String, Object>> abort(
+            @PathVariable UUID sessionId,
+            Authentication authentication) {
+        String username = getUsername(authentication);
+        if (username == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        try {
+            uploadSessionService.abort(sessionId, username);
+            return ResponseEntity.ok(Map.of("success", true));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Username of the authenticated caller, or null for anonymous requests.
+     */
+    private String getUsername(Authentication authentication) {
+        return UserPrincipal.idOf(authentication) != null ? authentication.getName() : null;
+    }
+}
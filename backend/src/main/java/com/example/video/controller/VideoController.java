@@ -1,13 +1,16 @@
 package com.example.video.controller;
 
 import com.example.video.dto.VideoFeedItem;
-import com.example.video.model.User;
 import com.example.video.model.Video;
-import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
 import com.example.video.service.DiscoverService;
+import com.example.video.service.PresignedUrlCache;
+import com.example.video.service.VideoSegmentCache;
 import com.example.video.service.VideoService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -16,22 +19,53 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/videos")
 @CrossOrigin(origins = "*") // Allow all for testing
 public class VideoController {
 
+    // Tomcat request attributes for handing a file region to sendfile (see org.apache.catalina.Globals).
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int MAX_RANGES = 16;
+
+    // Objects the transcoder writes: master.m3u8, <rendition>/index.m3u8, <rendition>/seg_NNNNN.ts
+    private static final Pattern HLS_PATH = Pattern.compile("/(?:[0-9]+p/)?[A-Za-z0-9_]+\\.(m3u8|ts)");
+
+    // Poster frames stored at upload: <name>/<width>.jpg
+    private static final Pattern THUMBNAIL_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final Pattern THUMBNAIL_FILE = Pattern.compile("[0-9]+\\.jpg");
+
     @Autowired
     private VideoService videoService;
 
     @Autowired
-    private DiscoverService discoverService;
+    private PresignedUrlCache presignedUrlCache;
 
     @Autowired
-    private UserRepository userRepository;
+    private DiscoverService discoverService;
 
     @PostMapping("/upload")
     public ResponseEntity<Video> uploadVideo(
@@ -46,6 +80,27 @@ public class VideoController {
         return ResponseEntity.ok(video);
     }
 
+    /**
+     * Raw-body upload: the request body is the video file (Content-Type {@code video/*}) and is
+     * piped into MinIO as it arrives instead of being spooled by the multipart resolver.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> uploadVideoStream(
+            @RequestParam("title") String title,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "filename", required = false) String filename,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        if (UserPrincipal.idOf(authentication) == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Please login first"));
+        }
+        Video video = videoService.uploadVideoStream(
+                request.getInputStream(), contentType, filename, title, description, authentication.getName());
+        return ResponseEntity.ok(video);
+    }
+
     @GetMapping
     public List<Video> listVideos() {
         return videoService.getAllVideos();
@@ -66,39 +121,238 @@ public class VideoController {
     @GetMapping(value = "/stream/{videoId}")
     public ResponseEntity<InputStreamResource> streamVideo(
             @PathVariable UUID videoId,
-            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
+            @RequestParam(required = false) String format,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request) {
+        VideoService.VideoStreamMetadata metadata;
         try {
-            VideoService.VideoStreamResource streamResource;
-            HttpHeaders headers = new HttpHeaders();
-            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            metadata = videoService.getVideoStreamMetadata(videoId);
+            if (metadata.hlsPlaylist() != null && prefersHls(format, requestHeaders)) {
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create("/api/videos/stream/" + videoId + "/hls/master.m3u8"))
+                        .build();
+            }
+            if (presignedUrlCache.isRedirectEnabled()) {
+                // MinIO serves the bytes, ranges and conditional requests itself.
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(presignedUrlCache.getUrl(videoId, metadata.objectName())))
+                        .build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = metadata.etag() != null ? "\"" + metadata.etag() + "\"" : null;
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (metadata.lastModified() > 0) {
+            headers.setLastModified(metadata.lastModified());
+        }
+        if (isNotModified(requestHeaders, etag, metadata.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
 
+        try {
+            String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+            List<ByteRange> ranges = rangeHeader != null && rangeHeader.startsWith("bytes=")
+                    && ifRangeMatches(requestHeaders.getFirst(HttpHeaders.IF_RANGE), etag, metadata.lastModified())
+                    ? parseRanges(rangeHeader, metadata.size())
+                    : List.of();
+            if (ranges.size() > 1) {
+                return multipartByteRanges(metadata, ranges, headers);
+            }
+
+            VideoService.VideoStreamResource streamResource;
             HttpStatus status = HttpStatus.OK;
-            if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                long totalLength = videoService.getVideoStreamMetadata(videoId).size();
-                ByteRange range = parseRange(rangeHeader, totalLength);
-                streamResource = videoService.getVideoStreamResource(videoId, range.start(), range.length());
+            if (ranges.size() == 1) {
+                ByteRange range = ranges.get(0);
+                streamResource = videoService.getVideoStreamResource(metadata, range.start(), range.length());
                 status = HttpStatus.PARTIAL_CONTENT;
                 headers.set(HttpHeaders.CONTENT_RANGE,
                         "bytes " + streamResource.getOffset()
                                 + "-" + (streamResource.getOffset() + streamResource.getContentLength() - 1)
                                 + "/" + streamResource.getTotalLength());
             } else {
-                streamResource = videoService.getVideoStreamResource(videoId, 0, -1);
+                streamResource = videoService.getVideoStreamResource(metadata, 0, -1);
             }
 
             MediaType mediaType = safeMediaType(streamResource.getContentType());
             headers.setContentLength(streamResource.getContentLength());
+
+            Optional<VideoSegmentCache.FileRange> cachedFile = Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))
+                    ? videoService.findCachedFileRange(metadata, streamResource.getOffset(), streamResource.getContentLength())
+                    : Optional.empty();
+            if (cachedFile.isPresent()) {
+                // Tomcat sends the file region straight to the socket once the (empty) response completes;
+                // an eviction meanwhile only unlinks the file after the cache's delete grace period.
+                streamResource.getStream().close();
+                request.setAttribute(SENDFILE_FILENAME, cachedFile.get().file().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, cachedFile.get().start());
+                request.setAttribute(SENDFILE_END, cachedFile.get().end());
+                return ResponseEntity.status(status)
+                        .headers(headers)
+                        .contentType(mediaType)
+                        .build();
+            }
+
             return ResponseEntity.status(status)
                     .headers(headers)
                     .contentType(mediaType)
                     .body(new InputStreamResource(streamResource.getStream()));
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.size())
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Playlists and segments of the HLS renditions. Segments never change once written; playlists
+     * are VOD playlists, so both can be cached by clients.
+     */
+    @GetMapping("/stream/{videoId}/hls/{*path}")
+    public ResponseEntity<InputStreamResource> streamHls(@PathVariable UUID videoId, @PathVariable String path) {
+        Matcher matcher = HLS_PATH.matcher(path);
+        if (!matcher.matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            VideoService.VideoStreamMetadata metadata = videoService.getVideoStreamMetadata(videoId);
+            if (metadata.hlsPlaylist() == null) {
+                return ResponseEntity.notFound().build();
+            }
+            InputStream stream = videoService.getHlsObject(metadata, path.substring(1));
+            return ResponseEntity.ok()
+                    .contentType("ts".equals(matcher.group(1))
+                            ? MediaType.parseMediaType("video/mp2t")
+                            : MediaType.parseMediaType("application/vnd.apple.mpegurl"))
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(1)))
+                    .body(new InputStreamResource(stream));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Poster frames stored at upload, {@code <width>.jpg} in each of the configured sizes.
+     */
+    @GetMapping("/thumbnails/{name}/{file}")
+    public ResponseEntity<InputStreamResource> getThumbnail(@PathVariable String name, @PathVariable String file) {
+        if (!THUMBNAIL_NAME.matcher(name).matches() || !THUMBNAIL_FILE.matcher(file).matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(7)))
+                    .body(new InputStreamResource(videoService.getThumbnail(name, file)));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * The progressive stream stays the default for existing clients; HLS is served to clients
+     * that ask for it with {@code ?format=hls} or an HLS Accept type.
+     */
+    private boolean prefersHls(String format, HttpHeaders requestHeaders) {
+        if (format != null) {
+            return "hls".equalsIgnoreCase(format);
+        }
+        String accept = requestHeaders.getFirst(HttpHeaders.ACCEPT);
+        return accept != null && accept.toLowerCase().contains("mpegurl");
+    }
+
+    /**
+     * If-None-Match (weak comparison) takes precedence; If-Modified-Since is only used without it.
+     */
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+        List<String> ifNoneMatch;
+        try {
+            ifNoneMatch = requestHeaders.getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!ifNoneMatch.isEmpty()) {
+            return etag != null && ifNoneMatch.stream()
+                    .anyMatch(tag -> "*".equals(tag) || stripWeak(tag).equals(stripWeak(etag)));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModified > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Range is honoured only if If-Range is absent or still matches: strong comparison for an
+     * entity tag, exact second for a date. Otherwise the full representation is sent.
+     */
+    private boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        HttpHeaders dateHeader = new HttpHeaders();
+        dateHeader.set(HttpHeaders.IF_RANGE, ifRange);
+        try {
+            return lastModified > 0 && dateHeader.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private ResponseEntity<InputStreamResource> multipartByteRanges(VideoService.VideoStreamMetadata metadata,
+                                                                    List<ByteRange> ranges,
+                                                                    HttpHeaders headers) {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<Supplier<InputStream>> parts = new ArrayList<>(ranges.size() * 2 + 1);
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary
+                    + "\r\nContent-Type: " + metadata.contentType()
+                    + "\r\nContent-Range: bytes " + range.start() + "-" + (range.start() + range.length() - 1)
+                    + "/" + metadata.size() + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            parts.add(() -> new ByteArrayInputStream(partHeader));
+            // Part bodies are opened one at a time as the response is written.
+            parts.add(() -> videoService.getVideoStreamResource(metadata, range.start(), range.length()).getStream());
+            contentLength += partHeader.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        parts.add(() -> new ByteArrayInputStream(closing));
+        contentLength += closing.length;
+
+        Iterator<Supplier<InputStream>> next = parts.iterator();
+        InputStream body = new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return next.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return next.next().get();
+            }
+        });
+
+        headers.setContentLength(contentLength);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .body(new InputStreamResource(body));
+    }
+
     private MediaType safeMediaType(String contentType) {
         try {
             return MediaType.parseMediaType(contentType);
@@ -107,12 +361,55 @@ public class VideoController {
         }
     }
 
-    private ByteRange parseRange(String rangeHeader, long totalLength) {
-        String value = rangeHeader.substring("bytes=".length()).trim();
-        if (value.contains(",")) {
-            throw new IllegalArgumentException("Multiple ranges are not supported");
+    /**
+     * Satisfiable ranges of a {@code bytes=} header, sorted and with overlapping or adjacent ranges
+     * merged. Ranges starting past the end are dropped; if none is left, or the header is malformed,
+     * the range is not satisfiable. More than {@link #MAX_RANGES} ranges, or ranges asking for more
+     * bytes in total than the object holds, are ignored and the full content is sent instead.
+     */
+    private List<ByteRange> parseRanges(String rangeHeader, long totalLength) {
+        String[] specs = rangeHeader.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return List.of();
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            ByteRange range = parseRange(spec.trim(), totalLength);
+            if (range != null) {
+                ranges.add(range);
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range");
+        }
+
+        long requested = 0;
+        for (ByteRange range : ranges) {
+            requested += range.length();
+        }
+        if (requested > totalLength) {
+            return List.of();
         }
 
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        List<ByteRange> merged = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (ByteRange range : ranges.subList(1, ranges.size())) {
+            long currentEnd = current.start() + current.length();
+            if (range.start() <= currentEnd) {
+                long end = Math.max(currentEnd, range.start() + range.length());
+                current = new ByteRange(current.start(), end - current.start());
+            } else {
+                merged.add(current);
+                current = range;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    private ByteRange parseRange(String value, long totalLength) {
         String[] parts = value.split("-", 2);
         long start;
         long end;
@@ -131,27 +428,19 @@ public class VideoController {
         } else {
             start = Long.parseLong(parts[0]);
             end = parts[1].isBlank() ? totalLength - 1 : Long.parseLong(parts[1]);
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException("Invalid range end");
+            }
         }
 
-        if (start < 0 || start >= totalLength) {
-            throw new IllegalArgumentException("Range start is out of bounds");
-        }
-
-        end = Math.min(end, totalLength - 1);
-        if (end < start) {
-            throw new IllegalArgumentException("Invalid range end");
+        if (start >= totalLength) {
+            return null;
         }
-
-        return new ByteRange(start, end - start + 1);
+        return new ByteRange(start, Math.min(end, totalLength - 1) - start + 1);
     }
 
     private UUID getCurrentUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return userRepository.findByUsername(authentication.getName())
-                .map(User::getId)
-                .orElse(null);
+        return UserPrincipal.idOf(authentication);
     }
 
     private record ByteRange(long start, long length) {
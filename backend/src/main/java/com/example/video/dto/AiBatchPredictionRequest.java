@@ -0,0 +1,11 @@
+package com.example.video.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AiBatchPredictionRequest {
+
+    private List<AiPredictionRequest> requests;
+}
@@ -0,0 +1,16 @@
+package com.example.video.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AiBatchPredictionResponse {
+
+    private String status;
+
+    /**
+     * One response per request, in the same order as {@link AiBatchPredictionRequest#getRequests()}.
+     */
+    private List<AiPredictionResponse> results;
+}
@@ -0,0 +1,15 @@
+package com.example.video.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of top-level comments. nextCursor is passed back as {@code cursor} to get the next
+ * page and is null on the last one.
+ */
+@Data
+public class CommentPage {
+    private List<CommentResponse> comments;
+    private String nextCursor;
+}
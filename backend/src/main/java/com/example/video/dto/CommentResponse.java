@@ -7,10 +7,13 @@ import java.util.List;
 @Data
 public class CommentResponse {
     private UUID id;
+    private UUID parentId;
     private String content;
     private UserSummary user;
     private String createdAt;
     private List<CommentResponse> replies;
+    // Replies in the whole thread when replies only holds a preview of them
+    private Integer replyCount;
 
     @Data
     public static class UserSummary {
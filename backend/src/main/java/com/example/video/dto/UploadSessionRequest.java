@@ -0,0 +1,12 @@
+package com.example.video.dto;
+
+import lombok.Data;
+
+@Data
+public class UploadSessionRequest {
+    private String title;
+    private String description;
+    private String filename;
+    private String contentType; // e.g. video/mp4
+    private long totalSize; // bytes
+}
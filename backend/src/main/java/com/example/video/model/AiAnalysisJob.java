@@ -32,6 +32,17 @@ public class AiAnalysisJob {
     @Column(nullable = false, length = 20)
     private String status = "queued";
 
+    // Lane: high, normal or low; see AiAnalysisService
+    @Column(nullable = false, length = 10)
+    private String priority = "normal";
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Earliest time a retry may run; null when the job can run right away
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
     @Column(name = "scenes_detected")
     private Integer scenesDetected;
 
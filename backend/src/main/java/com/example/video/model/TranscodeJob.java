@@ -0,0 +1,49 @@
+package com.example.video.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "transcode_jobs")
+@Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class TranscodeJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "video_id", nullable = false)
+    private Video video;
+
+    @Column(nullable = false, length = 20)
+    private String status = "queued";
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Renditions produced, e.g. "720p,480p,360p"
+    @Column(length = 100)
+    private String renditions;
+
+    @Column(name = "playlist_object")
+    private String playlistObject;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,64 @@
+package com.example.video.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A resumable upload: one MinIO multipart upload whose parts the client PUTs by number, in any
+ * order, until it completes the session or the session expires and its parts are aborted.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "object_name", nullable = false)
+    private String objectName;
+
+    @Column(name = "upload_id", nullable = false)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "part_count", nullable = false)
+    private Integer partCount;
+
+    @Column(nullable = false, length = 20)
+    private String status = "open";
+
+    @Column(name = "video_id")
+    private UUID videoId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -31,10 +31,18 @@ public class Video {
     @Column(name = "video_url", nullable = false)
     private String videoUrl;
 
+    // Master playlist object of the HLS renditions, set by the transcoder through
+    // VideoRepository.updateHlsPlaylistUrl once every rendition is stored.
+    @JsonIgnore
+    @Column(name = "hls_playlist_url", insertable = false, updatable = false)
+    private String hlsPlaylistUrl;
+
     @JsonProperty("videoUrl")
     public String getStreamUrl() {
         if (this.videoUrl.startsWith("http"))
             return this.videoUrl;
+        if (this.hlsPlaylistUrl != null)
+            return "/api/videos/stream/" + this.id + "/hls/master.m3u8";
         return "/api/videos/stream/" + this.id;
     }
 
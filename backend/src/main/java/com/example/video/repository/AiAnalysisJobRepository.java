@@ -2,11 +2,52 @@ package com.example.video.repository;
 
 import com.example.video.model.AiAnalysisJob;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface AiAnalysisJobRepository extends JpaRepository<AiAnalysisJob, UUID> {
     List<AiAnalysisJob> findByVideoId(UUID videoId);
     List<AiAnalysisJob> findByStatus(String status);
+    long countByStatus(String status);
+    long countByStatusAndPriority(String status, String priority);
+
+    /**
+     * Next runnable queued job: high before normal before low, oldest first within a lane. Every
+     * {@code agingSeconds} of waiting lifts a job one lane, so low-priority work cannot starve.
+     */
+    @Query(value = """
+            SELECT * FROM ai_analysis_jobs j
+            WHERE j.status = 'queued'
+              AND (j.next_attempt_at IS NULL OR j.next_attempt_at <= now())
+            ORDER BY (CASE j.priority WHEN 'high' THEN 0 WHEN 'normal' THEN 1 ELSE 2 END)
+                         - FLOOR(EXTRACT(EPOCH FROM (now() - j.created_at)) / :agingSeconds),
+                     j.created_at
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<AiAnalysisJob> findNextRunnable(@Param("agingSeconds") long agingSeconds);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE AiAnalysisJob j
+            SET j.status = :to
+            WHERE j.id = :id
+              AND j.status = :from
+            """)
+    int transition(@Param("id") UUID id, @Param("from") String from, @Param("to") String to);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE AiAnalysisJob j
+            SET j.status = 'queued'
+            WHERE j.status = 'processing'
+            """)
+    int requeueProcessing();
 }
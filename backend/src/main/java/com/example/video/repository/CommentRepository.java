@@ -1,10 +1,13 @@
 package com.example.video.repository;
 
 import com.example.video.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,4 +19,119 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
     
     @Query("SELECT c FROM Comment c WHERE c.video.id = :videoId AND c.parent IS NULL ORDER BY c.createdAt DESC")
     List<Comment> findTopLevelComments(@Param("videoId") UUID videoId);
+
+    /**
+     * Every comment of a video with its author, so a whole tree is built from one query.
+     */
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.video.id = :videoId
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<Comment> findByVideoIdWithUser(@Param("videoId") UUID videoId);
+
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.id IN :ids
+            """)
+    List<Comment> findByIdInWithUser(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * First page of top-level comments, newest first.
+     */
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.video.id = :videoId
+              AND c.parent IS NULL
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<Comment> findTopLevelPage(@Param("videoId") UUID videoId, Pageable pageable);
+
+    /**
+     * Next page of top-level comments after the (createdAt, id) of the last one returned.
+     */
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.video.id = :videoId
+              AND c.parent IS NULL
+              AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<Comment> findTopLevelPageAfter(@Param("videoId") UUID videoId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") UUID id,
+                                        Pageable pageable);
+
+    /**
+     * First page of all of a video's comments, replies included, newest first.
+     */
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.video.id = :videoId
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<Comment> findPage(@Param("videoId") UUID videoId, Pageable pageable);
+
+    @Query("""
+            SELECT c
+            FROM Comment c
+            JOIN FETCH c.user
+            WHERE c.video.id = :videoId
+              AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<Comment> findPageAfter(@Param("videoId") UUID videoId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") UUID id,
+                                Pageable pageable);
+
+    /**
+     * (id, root_id, position, total) of the replies under each root, at any depth. position is the
+     * reply's chronological rank within its thread and total the thread's reply count; only the
+     * first previewCount of each thread are returned (at least one, to carry the total).
+     */
+    @Query(value = """
+            WITH RECURSIVE thread AS (
+                SELECT c.id, c.parent_id AS root_id, c.created_at
+                FROM comments c
+                WHERE c.parent_id IN (:rootIds)
+                UNION ALL
+                SELECT c.id, t.root_id, c.created_at
+                FROM comments c
+                JOIN thread t ON c.parent_id = t.id
+            ), ranked AS (
+                SELECT id, root_id,
+                       ROW_NUMBER() OVER (PARTITION BY root_id ORDER BY created_at, id) AS position,
+                       COUNT(*) OVER (PARTITION BY root_id) AS total
+                FROM thread
+            )
+            SELECT id, root_id, position, total
+            FROM ranked
+            WHERE position <= GREATEST(:previewCount, 1)
+            """, nativeQuery = true)
+    List<Object[]> findThreadReplies(@Param("rootIds") Collection<UUID> rootIds,
+                                     @Param("previewCount") int previewCount);
+
+    /**
+     * Size of the subtree rooted at commentId, the comment itself included.
+     */
+    @Query(value = """
+            WITH RECURSIVE thread AS (
+                SELECT c.id FROM comments c WHERE c.id = :commentId
+                UNION ALL
+                SELECT c.id FROM comments c JOIN thread t ON c.parent_id = t.id
+            )
+            SELECT COUNT(*) FROM thread
+            """, nativeQuery = true)
+    long countThread(@Param("commentId") UUID commentId);
 }
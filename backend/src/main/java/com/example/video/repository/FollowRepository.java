@@ -21,6 +21,13 @@ public interface FollowRepository extends JpaRepository<Follow, FollowId> {
     long countByFollowerId(UUID followerId); // Following count
     long countByFollowingId(UUID followingId); // Followers count
 
+    @Query("""
+            SELECT f.followingId
+            FROM Follow f
+            WHERE f.followerId = :followerId
+            """)
+    List<UUID> findFollowingIdsByFollowerId(@Param("followerId") UUID followerId);
+
     @Query("""
             SELECT f.followingId
             FROM Follow f
@@ -37,4 +44,12 @@ public interface FollowRepository extends JpaRepository<Follow, FollowId> {
             GROUP BY f.followingId
             """)
     List<Object[]> countFollowersByFollowingIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("""
+            SELECT f.followerId, COUNT(f)
+            FROM Follow f
+            WHERE f.followerId IN :userIds
+            GROUP BY f.followerId
+            """)
+    List<Object[]> countFollowingByFollowerIds(@Param("userIds") Collection<UUID> userIds);
 }
@@ -0,0 +1,50 @@
+package com.example.video.repository;
+
+import com.example.video.model.TranscodeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TranscodeJobRepository extends JpaRepository<TranscodeJob, UUID> {
+    List<TranscodeJob> findByVideoId(UUID videoId);
+
+    long countByStatus(String status);
+
+    Optional<TranscodeJob> findFirstByStatusOrderByCreatedAtAsc(String status);
+
+    @Query("""
+            SELECT j
+            FROM TranscodeJob j
+            JOIN FETCH j.video
+            WHERE j.id = :id
+            """)
+    Optional<TranscodeJob> findWithVideoById(@Param("id") UUID id);
+
+    /**
+     * Moves a job from {@code from} to {@code to}; a worker only runs a job it claimed this way.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob j
+            SET j.status = :to
+            WHERE j.id = :id
+              AND j.status = :from
+            """)
+    int transition(@Param("id") UUID id, @Param("from") String from, @Param("to") String to);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob j
+            SET j.status = 'queued'
+            WHERE j.status = 'processing'
+            """)
+    int requeueProcessing();
+}
@@ -0,0 +1,34 @@
+package com.example.video.repository;
+
+import com.example.video.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    Optional<UploadSession> findByIdAndUserUsername(UUID id, String username);
+
+    List<UploadSession> findTop100ByStatusAndExpiresAtBefore(String status, LocalDateTime now);
+
+    /**
+     * Moves a session out of {@code from}; only one of racing callers (completion, abort, the
+     * expiry sweep) sees 1 and goes on to finish or abort the multipart upload.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE UploadSession s
+            SET s.status = :to
+            WHERE s.id = :id
+              AND s.status = :from
+            """)
+    int transition(@Param("id") UUID id, @Param("from") String from, @Param("to") String to);
+}
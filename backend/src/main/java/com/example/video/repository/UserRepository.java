@@ -2,6 +2,8 @@ package com.example.video.repository;
 
 import com.example.video.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +19,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByEmail(String email);
 
     List<User> findTop10ByUsernameContainingIgnoreCaseOrderByUsernameAsc(String username);
+
+    /**
+     * Next chunk of (id, numeric_id, whole days since registration) ordered by id within
+     * (afterId, lastId], for keyset-paginated exports.
+     */
+    @Query(value = """
+            SELECT u.id,
+                   u.numeric_id,
+                   CAST(FLOOR(EXTRACT(EPOCH FROM (CURRENT_TIMESTAMP - u.created_at)) / 86400) AS BIGINT)
+            FROM users u
+            WHERE u.id > :afterId
+              AND u.id <= :lastId
+              AND u.numeric_id IS NOT NULL
+            ORDER BY u.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findExportChunk(@Param("afterId") UUID afterId,
+                                   @Param("lastId") UUID lastId,
+                                   @Param("limit") int limit);
 }
@@ -5,11 +5,14 @@ import com.example.video.model.VideoStatus;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface VideoRepository extends JpaRepository<Video, UUID> {
@@ -18,6 +21,7 @@ public interface VideoRepository extends JpaRepository<Video, UUID> {
     List<Video> findByStatusOrderByCreatedAtDesc(VideoStatus status);
     long countByUserId(UUID userId);
     long countByUserIdAndStatus(UUID userId, VideoStatus status);
+    boolean existsByVideoUrl(String videoUrl);
 
     @EntityGraph(attributePaths = "user")
     @Query("SELECT v FROM Video v WHERE v.id IN :ids")
@@ -41,6 +45,37 @@ public interface VideoRepository extends JpaRepository<Video, UUID> {
             """)
     List<Object[]> countByUserIdsAndStatus(@Param("userIds") Collection<UUID> userIds, @Param("status") VideoStatus status);
 
+    @Query("""
+            SELECT v.user.id, COUNT(v)
+            FROM Video v
+            WHERE v.user.id IN :userIds
+            GROUP BY v.user.id
+            """)
+    List<Object[]> countByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("""
+            SELECT v.user.id
+            FROM Video v
+            WHERE v.id = :videoId
+            """)
+    Optional<UUID> findOwnerIdById(@Param("videoId") UUID videoId);
+
+    /**
+     * Next chunk of (id, numeric_id, category_id) ordered by id within
+     * (afterId, lastId], for keyset-paginated exports.
+     */
+    @Query(value = """
+            SELECT v.id, v.numeric_id, v.category_id FROM videos v
+            WHERE v.id > :afterId
+              AND v.id <= :lastId
+              AND v.numeric_id IS NOT NULL
+            ORDER BY v.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findExportChunk(@Param("afterId") UUID afterId,
+                                   @Param("lastId") UUID lastId,
+                                   @Param("limit") int limit);
+
     @Query(value = """
             SELECT v.id
             FROM videos v
@@ -135,6 +170,46 @@ public interface VideoRepository extends JpaRepository<Video, UUID> {
             """, nativeQuery = true)
     List<UUID> findRandomVideoIdsExcluding(@Param("excludeIds") Collection<UUID> excludeIds, @Param("limit") int limit);
 
+    /**
+     * (video id, owner id) of every active video, used to rebuild the in-memory candidate pool.
+     */
+    @Query(value = """
+            SELECT v.id, v.user_id FROM videos v
+            WHERE v.status = 'active'
+            """, nativeQuery = true)
+    List<Object[]> findActiveVideoIdsWithOwner();
+
+    // ==================== FEED HYDRATION ====================
+
+    /**
+     * Everything a feed page needs per video, in one round trip. One row per video:
+     * id, owner id, has_stats, view/like/comment/share counts, hashtag names (JSON array text or
+     * null), liked/follows-owner/reposted by the viewer, repost count. Pass the nil UUID as
+     * viewer for anonymous requests.
+     */
+    @Query(value = """
+            SELECT v.id,
+                   v.user_id,
+                   vs.video_id IS NOT NULL,
+                   vs.view_count,
+                   vs.like_count,
+                   vs.comment_count,
+                   vs.share_count,
+                   (SELECT CAST(json_agg(t.name) AS text)
+                      FROM video_tags vt
+                      JOIN tags t ON t.id = vt.tag_id
+                     WHERE vt.video_id = v.id
+                       AND LOWER(COALESCE(t.category, '')) = 'hashtag'),
+                   EXISTS (SELECT 1 FROM likes l WHERE l.user_id = :viewerId AND l.video_id = v.id),
+                   EXISTS (SELECT 1 FROM follows f WHERE f.follower_id = :viewerId AND f.following_id = v.user_id),
+                   EXISTS (SELECT 1 FROM video_reposts vr WHERE vr.user_id = :viewerId AND vr.video_id = v.id),
+                   (SELECT COUNT(*) FROM video_reposts vr WHERE vr.video_id = v.id)
+            FROM videos v
+            LEFT JOIN video_stats vs ON vs.video_id = v.id
+            WHERE v.id IN (:videoIds)
+            """, nativeQuery = true)
+    List<Object[]> findFeedContextRows(@Param("videoIds") Collection<UUID> videoIds, @Param("viewerId") UUID viewerId);
+
     /**
      * Random N active videos (no filter).
      */
@@ -145,4 +220,13 @@ public interface VideoRepository extends JpaRepository<Video, UUID> {
             LIMIT :limit
             """, nativeQuery = true)
     List<UUID> findRandomActiveVideoIds(@Param("limit") int limit);
+
+    /**
+     * hls_playlist_url is not updatable through the entity, so a concurrent save of a stale
+     * Video (e.g. by AI analysis) cannot clear it.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Video v SET v.hlsPlaylistUrl = :playlist WHERE v.id = :id")
+    int updateHlsPlaylistUrl(@Param("id") UUID id, @Param("playlist") String playlist);
 }
@@ -2,6 +2,10 @@ package com.example.video.repository;
 
 import com.example.video.model.VideoScene;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -9,4 +13,10 @@ import java.util.UUID;
 public interface VideoSceneRepository extends JpaRepository<VideoScene, UUID> {
     List<VideoScene> findByVideoIdOrderBySceneIndex(UUID videoId);
     long countByVideoId(UUID videoId);
+
+    // scene_tags rows go with their scenes (ON DELETE CASCADE)
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM video_scenes WHERE video_id = :videoId", nativeQuery = true)
+    int deleteByVideoId(@Param("videoId") UUID videoId);
 }
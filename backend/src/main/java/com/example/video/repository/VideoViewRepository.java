@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface VideoViewRepository extends JpaRepository<VideoView, UUID> {
@@ -13,4 +15,12 @@ public interface VideoViewRepository extends JpaRepository<VideoView, UUID> {
 
     @Query("SELECT COUNT(DISTINCT vv.videoId) FROM VideoView vv WHERE vv.userId = :userId")
     long countDistinctVideosWatched(@Param("userId") UUID userId);
+
+    @Query("""
+            SELECT vv.userId, COUNT(vv)
+            FROM VideoView vv
+            WHERE vv.userId IN :userIds
+            GROUP BY vv.userId
+            """)
+    List<Object[]> countByUserIds(@Param("userIds") Collection<UUID> userIds);
 }
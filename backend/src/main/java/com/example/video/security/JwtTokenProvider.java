@@ -1,55 +1,114 @@
 package com.example.video.security;
 
+import com.example.video.model.UserRole;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Issues and verifies the HS512 access tokens.
+ *
+ * Keys form a ring of {@code kid:secret} pairs. New tokens are signed with the active key and name
+ * it in the {@code kid} header; verification picks the key by that header, so a key can be rotated
+ * by adding the new one, making it active, and dropping the old one once its tokens have expired.
+ * Tokens without a {@code kid} (issued before the ring) verify against {@code legacy-kid}. The
+ * keys and the parser are built once at startup and shared: JwtParser is immutable and thread-safe,
+ * so a request only pays for the signature check itself.
+ */
 @Component
 public class JwtTokenProvider {
 
-    // Should be in application.properties. Using a strong default for MVP.
-    // Minimum 256-bit key for HS512
-    private final String jwtSecret = "9a4f2c8d3b7a1e6f4c5d8e0s1u2i3o4p5l6k7j8h9g0f1q2w3e4r5t6y7u8i9o0p";
+    // Claims carrying the principal, so requests need no user lookup
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
+    // Minimum 256-bit secrets for HS512; the default ring keeps the original MVP secret
+    @Value("${security.jwt.keys:default:9a4f2c8d3b7a1e6f4c5d8e0s1u2i3o4p5l6k7j8h9g0f1q2w3e4r5t6y7u8i9o0p}")
+    private String keyRing;
+
+    @Value("${security.jwt.active-kid:default}")
+    private String activeKid;
+
+    @Value("${security.jwt.legacy-kid:default}")
+    private String legacyKid;
 
     // 7 days
-    private final int jwtExpirationMs = 604800000;
+    @Value("${security.jwt.expiration-ms:604800000}")
+    private long jwtExpirationMs;
+
+    private Map<String, Key> keys;
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        Map<String, Key> ring = new LinkedHashMap<>();
+        for (String entry : keyRing.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("security.jwt.keys entries must be kid:secret");
+            }
+            ring.put(entry.substring(0, separator).trim(),
+                    Keys.hmacShaKeyFor(entry.substring(separator + 1).trim().getBytes(StandardCharsets.UTF_8)));
+        }
+        keys = Map.copyOf(ring);
+        signingKey = keys.get(activeKid);
+        if (signingKey == null) {
+            throw new IllegalStateException("security.jwt.active-kid '" + activeKid + "' is not in the key ring");
+        }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        String kid = header.getKeyId() != null ? header.getKeyId() : legacyKid;
+                        Key key = keys.get(kid);
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key id: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
-        return Jwts.builder()
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKid)
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
-    }
-
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs));
+        if (userPrincipal instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId().toString())
+                    .claim(ROLE_CLAIM, principal.getRole().name());
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS512).compact();
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Verifies the token and returns its claims, or null if it is invalid or expired. Callers
+     * parse a token once and read everything they need from the result.
+     */
+    public Claims parseToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException ex) {
-            // Invalid JWT signature or token
+            // Invalid JWT signature, unknown key id or malformed token
         } catch (ExpiredJwtException ex) {
             // Expired JWT token
         } catch (UnsupportedJwtException ex) {
@@ -57,6 +116,32 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             // JWT claims string is empty
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Principal carried by the claims, or null for tokens issued before they held the user id and
+     * role (or with an unreadable one).
+     */
+    public UserPrincipal toPrincipal(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        try {
+            return new UserPrincipal(UUID.fromString(userId), claims.getSubject(), null, UserRole.valueOf(role));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    public String getUsernameFromJWT(String token) {
+        Claims claims = parseToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseToken(authToken) != null;
     }
 }
@@ -0,0 +1,95 @@
+package com.example.video.security;
+
+import com.example.video.model.UserRole;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Authenticated user as carried by the JWT: id, username and role. Requests resolve the current
+ * user from it instead of looking the username up again.
+ */
+public class UserPrincipal implements UserDetails {
+
+    private final UUID id;
+    private final String username;
+    private final String password;
+    private final UserRole role;
+    private final List<GrantedAuthority> authorities;
+
+    public UserPrincipal(UUID id, String username, String password, UserRole role) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role != null ? role : UserRole.user;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + this.role.name().toUpperCase()));
+    }
+
+    /**
+     * Id of the authenticated user, or null for anonymous requests.
+     */
+    public static UUID idOf(Authentication authentication) {
+        UserPrincipal principal = of(authentication);
+        return principal != null ? principal.getId() : null;
+    }
+
+    public static boolean isModerator(Authentication authentication) {
+        UserPrincipal principal = of(authentication);
+        return principal != null && (principal.getRole() == UserRole.admin || principal.getRole() == UserRole.moderator);
+    }
+
+    private static UserPrincipal of(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof UserPrincipal principal ? principal : null;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -10,6 +10,8 @@ import com.example.video.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,15 @@ public class AdminService {
     @Autowired
     private ModerationQueueRepository moderationQueueRepository;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private VideoStatsCounterBuffer videoStatsCounterBuffer;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
     // ==================== CONTENT MODERATION ====================
 
     public List<Report> getOpenReports() {
@@ -136,6 +147,7 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("Video not found"));
         video.setStatus(VideoStatus.banned);
         videoRepository.save(video);
+        videoMetadataCache.invalidate(videoId);
     }
 
     @Transactional
@@ -144,6 +156,7 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("Video not found"));
         video.setStatus(VideoStatus.active);
         videoRepository.save(video);
+        videoMetadataCache.invalidate(videoId);
     }
 
     @Transactional
@@ -157,6 +170,7 @@ public class AdminService {
         for (Video video : userVideos) {
             video.setStatus(VideoStatus.banned);
             videoRepository.save(video);
+            videoMetadataCache.invalidate(video.getId());
         }
 
         // Could also add a 'banned' flag to user if needed
@@ -191,10 +205,13 @@ public class AdminService {
             VideoStats stats = statsByVideoId.get(video.getId());
             
             if (stats != null) {
-                long views = stats.getViewCount() != null ? stats.getViewCount() : 0;
+                long views = (stats.getViewCount() != null ? stats.getViewCount() : 0)
+                        + videoStatsCounterBuffer.getPending(video.getId(), VideoStatsCounterBuffer.Metric.VIEW);
                 long likes = stats.getLikeCount() != null ? stats.getLikeCount() : 0;
-                long comments = stats.getCommentCount() != null ? stats.getCommentCount() : 0;
-                long shares = stats.getShareCount() != null ? stats.getShareCount() : 0;
+                long comments = Math.max(0, (stats.getCommentCount() != null ? stats.getCommentCount() : 0)
+                        + videoStatsCounterBuffer.getPending(video.getId(), VideoStatsCounterBuffer.Metric.COMMENT));
+                long shares = (stats.getShareCount() != null ? stats.getShareCount() : 0)
+                        + videoStatsCounterBuffer.getPending(video.getId(), VideoStatsCounterBuffer.Metric.SHARE);
 
                 totalViews += views;
                 totalLikes += likes;
@@ -305,6 +322,7 @@ public class AdminService {
             if (userRepository.existsByUsername(request.getUsername())) {
                 throw new RuntimeException("Username is already taken");
             }
+            evictPrincipalAfterCommit(user.getUsername());
             user.setUsername(request.getUsername().trim());
         }
 
@@ -320,6 +338,23 @@ public class AdminService {
         return getUserProfile(userId, userId);
     }
 
+    /**
+     * Evicts the old username once the rename commits, so a lookup racing the transaction cannot
+     * cache the principal again under the name being released.
+     */
+    private void evictPrincipalAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userPrincipalCache.evict(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userPrincipalCache.evict(username);
+            }
+        });
+    }
+
     private List<UserCardResponse> toUserCards(List<User> users, UUID currentUserId) {
         if (users.isEmpty()) {
             return List.of();
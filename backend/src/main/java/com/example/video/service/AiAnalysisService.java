@@ -4,26 +4,72 @@ import com.example.video.model.*;
 import com.example.video.repository.*;
 import com.google.cloud.videointelligence.v1.*;
 import com.google.protobuf.ByteString;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI scene/label analysis of uploaded videos on a bounded, persistent queue.
+ *
+ * Each request is an {@code ai_analysis_jobs} row in one of three priority lanes (high, normal,
+ * low). A dispatcher claims the next runnable job whenever one of {@code workers} slots is free:
+ * highest lane first, oldest first within a lane, and every {@code aging-seconds} of waiting lifts
+ * a job one lane so low-priority backfills still make progress. Jobs survive restarts (those left
+ * processing are queued again on startup). A failed attempt is retried with exponential backoff up
+ * to {@code max-attempts}; only the final failure falls back to publishing the video for review.
+ *
+ * The Video Intelligence API takes the video inline, so its bytes must be in memory while the
+ * request is sent. They are read from MinIO straight into the request's ByteString (no extra
+ * byte[] copy), and a megabyte budget caps how much inline content all workers hold at once.
+ */
 @Service
 public class AiAnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiAnalysisService.class);
     private static final long MAX_INLINE_AI_FILE_SIZE_BYTES = 50L * 1024L * 1024L;
+    private static final int MIB = 1024 * 1024;
+
+    public static final String PRIORITY_HIGH = "high";
+    public static final String PRIORITY_NORMAL = "normal";
+    public static final String PRIORITY_LOW = "low";
+
+    private static final String QUEUED = "queued";
+    private static final String PROCESSING = "processing";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
 
     @Value("${video-ai.enabled:false}")
     private boolean aiEnabled;
 
+    @Value("${ai.analysis.workers:2}")
+    private int workers;
+
+    @Value("${ai.analysis.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${ai.analysis.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    @Value("${ai.analysis.max-backoff-seconds:1800}")
+    private long maxBackoffSeconds;
+
+    @Value("${ai.analysis.aging-seconds:600}")
+    private long agingSeconds;
+
+    @Value("${ai.analysis.inline-budget-mb:128}")
+    private int inlineBudgetMb;
+
     @Autowired
     private VideoRepository videoRepository;
 
@@ -51,20 +97,86 @@ public class AiAnalysisService {
     @Autowired(required = false)
     private VideoIntelligenceServiceClient videoAiClient;
 
-    @Async
+    private JobWorkers pool;
+    private Semaphore inlineBudget;
+    private final LongAdder retries = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        pool = new JobWorkers("ai-analysis-worker", workers,
+                () -> jobRepository.findNextRunnable(Math.max(agingSeconds, 1)).map(AiAnalysisJob::getId),
+                jobId -> jobRepository.transition(jobId, QUEUED, PROCESSING) > 0,
+                this::run);
+        inlineBudget = new Semaphore(Math.max(inlineBudgetMb, 1));
+        int requeued = jobRepository.requeueProcessing();
+        if (requeued > 0) {
+            logger.info("Requeued {} AI analysis jobs interrupted by a restart", requeued);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdown();
+    }
+
     public void analyzeVideo(UUID videoId) {
+        analyzeVideo(videoId, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Queues an analysis of the video in the given lane and returns without waiting for it.
+     */
+    public AiAnalysisJob analyzeVideo(UUID videoId, String priority) {
+        if (!Set.of(PRIORITY_HIGH, PRIORITY_NORMAL, PRIORITY_LOW).contains(priority)) {
+            throw new IllegalArgumentException("Unknown priority: " + priority);
+        }
         Video video = videoRepository.findById(videoId)
-                .orElseThrow(() -> new RuntimeException("Video not found: " + videoId));
+                .orElseThrow(() -> new NoSuchElementException("Video not found: " + videoId));
 
         AiAnalysisJob job = new AiAnalysisJob();
         job.setVideo(video);
         job.setModelName(aiEnabled ? "google-video-intelligence" : "mock");
         job.setModelVersion("v1");
-        job.setStatus("processing");
+        job.setStatus(QUEUED);
+        job.setPriority(priority);
+        job = jobRepository.save(job);
+        dispatch();
+        return job;
+    }
+
+    /**
+     * Hands runnable jobs to free workers. Called on enqueue, when a worker finishes, and
+     * periodically to pick up retries whose backoff has passed.
+     */
+    @Scheduled(fixedDelayString = "${ai.analysis.poll-interval-ms:5000}")
+    public void dispatch() {
+        pool.dispatch();
+    }
+
+    private void run(UUID jobId) {
+        AiAnalysisJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        Video video = videoRepository.findById(job.getVideo().getId()).orElse(null);
+        if (video == null) {
+            job.setStatus(FAILED);
+            job.setErrorMessage("Video not found");
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            return;
+        }
+
+        job.setAttempts(job.getAttempts() + 1);
+        job.setStatus(PROCESSING);
         job.setStartedAt(LocalDateTime.now());
+        job.setNextAttemptAt(null);
         job = jobRepository.save(job);
 
         try {
+            // Scenes of an earlier analysis or a failed attempt would otherwise be duplicated.
+            sceneRepository.deleteByVideoId(video.getId());
+
             List<VideoScene> scenes;
             if (aiEnabled && videoAiClient != null) {
                 scenes = analyzeWithGoogleAi(video, job);
@@ -73,7 +185,8 @@ public class AiAnalysisService {
             }
 
             job.setScenesDetected(scenes.size());
-            job.setStatus("completed");
+            job.setStatus(COMPLETED);
+            job.setErrorMessage(null);
             job.setCompletedAt(LocalDateTime.now());
             jobRepository.save(job);
 
@@ -86,10 +199,28 @@ public class AiAnalysisService {
             // Tạo queue entry để admin review nhãn nếu cần
             createModerationQueueEntry(video, job);
 
-            logger.info("AI analysis completed for video {}: {} scenes detected", videoId, scenes.size());
+            logger.info("AI analysis completed for video {}: {} scenes detected", video.getId(), scenes.size());
         } catch (Exception e) {
-            logger.error("AI analysis failed for video {}", videoId, e);
-            job.setStatus("failed");
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            boolean interrupted = Thread.currentThread().isInterrupted();
+            if (interrupted || job.getAttempts() < maxAttempts) {
+                // Shutdown puts the job back as is; a failure waits out an exponential backoff.
+                long backoff = interrupted ? 0 : Math.min(
+                        retryBackoffSeconds << Math.min(job.getAttempts() - 1, 20), maxBackoffSeconds);
+                logger.warn("AI analysis attempt {}/{} failed for video {}, retrying in {}s: {}",
+                        job.getAttempts(), maxAttempts, video.getId(), backoff, e.getMessage());
+                retries.increment();
+                job.setStatus(QUEUED);
+                job.setErrorMessage(e.getMessage());
+                job.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+                jobRepository.save(job);
+                return;
+            }
+
+            logger.error("AI analysis failed for video {}", video.getId(), e);
+            job.setStatus(FAILED);
             job.setErrorMessage(e.getMessage());
             job.setCompletedAt(LocalDateTime.now());
             jobRepository.save(job);
@@ -103,16 +234,29 @@ public class AiAnalysisService {
     }
 
     private List<VideoScene> analyzeWithGoogleAi(Video video, AiAnalysisJob job) throws Exception {
-        if (video.getFileSize() != null && video.getFileSize() > MAX_INLINE_AI_FILE_SIZE_BYTES) {
+        long size = video.getFileSize() != null && video.getFileSize() > 0
+                ? video.getFileSize()
+                : minioService.statObject(video.getVideoUrl()).size();
+        if (size > MAX_INLINE_AI_FILE_SIZE_BYTES) {
             throw new IllegalStateException("Video is too large for inline AI analysis");
         }
+        int permits = (int) Math.min((size + MIB - 1) / MIB, Math.max(inlineBudgetMb, 1));
+        inlineBudget.acquire(permits);
+        try {
+            return annotate(video);
+        } finally {
+            inlineBudget.release(permits);
+        }
+    }
 
-        InputStream videoStream = minioService.getFile(video.getVideoUrl());
-        byte[] videoBytes = videoStream.readAllBytes();
-        videoStream.close();
+    private List<VideoScene> annotate(Video video) throws Exception {
+        ByteString content;
+        try (InputStream videoStream = minioService.getFile(video.getVideoUrl())) {
+            content = ByteString.readFrom(videoStream, MIB);
+        }
 
         AnnotateVideoRequest request = AnnotateVideoRequest.newBuilder()
-                .setInputContent(ByteString.copyFrom(videoBytes))
+                .setInputContent(content)
                 .addFeatures(Feature.SHOT_CHANGE_DETECTION)
                 .addFeatures(Feature.LABEL_DETECTION)
                 .build();
@@ -211,7 +355,20 @@ public class AiAnalysisService {
         }
     }
 
+    /**
+     * A re-analysis of a video still awaiting review moves its open entry to the new job instead
+     * of queueing the video twice.
+     */
     private void createModerationQueueEntry(Video video, AiAnalysisJob job) {
+        Optional<ModerationQueue> open = queueRepository.findByVideoId(video.getId()).stream()
+                .filter(q -> "pending".equals(q.getStatus()) || "in_review".equals(q.getStatus()))
+                .findFirst();
+        if (open.isPresent()) {
+            open.get().setAiJob(job);
+            queueRepository.save(open.get());
+            return;
+        }
+
         ModerationQueue queue = new ModerationQueue();
         queue.setVideo(video);
         queue.setAiJob(job);
@@ -219,4 +376,22 @@ public class AiAnalysisService {
         queue.setStatus("pending");
         queueRepository.save(queue);
     }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("busyWorkers", pool.busyWorkers());
+        Map<String, Long> queued = new LinkedHashMap<>();
+        for (String lane : List.of(PRIORITY_HIGH, PRIORITY_NORMAL, PRIORITY_LOW)) {
+            queued.put(lane, jobRepository.countByStatusAndPriority(QUEUED, lane));
+        }
+        stats.put("queued", queued);
+        stats.put("processing", jobRepository.countByStatus(PROCESSING));
+        stats.put("completed", jobRepository.countByStatus(COMPLETED));
+        stats.put("failed", jobRepository.countByStatus(FAILED));
+        stats.put("retries", retries.sum());
+        stats.put("inlineBudgetMb", inlineBudgetMb);
+        stats.put("inlineBudgetAvailableMb", inlineBudget.availablePermits());
+        return stats;
+    }
 }
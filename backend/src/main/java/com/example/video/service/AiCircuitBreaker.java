@@ -0,0 +1,165 @@
+package com.example.video.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker for calls to the AI prediction server.
+ *
+ * Outcomes are kept in a count-based sliding window. A call counts as a failure when it errors
+ * or when it completes later than the latency budget. Once the failure rate of a full-enough
+ * window crosses the threshold the breaker opens and callers skip the AI server entirely. After
+ * the open duration a single probe call is let through (half-open); its outcome closes or
+ * re-opens the breaker.
+ */
+@Service
+public class AiCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${ai.predict.latency-budget-ms:150}")
+    private long latencyBudgetMs;
+
+    @Value("${ai.predict.breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${ai.predict.breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${ai.predict.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${ai.predict.breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder successfulCalls = new LongAdder();
+
+    private State state = State.CLOSED;
+    private boolean[] outcomes;
+    private int recorded;
+    private int cursor;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public long getLatencyBudgetMs() {
+        return latencyBudgetMs;
+    }
+
+    /**
+     * Whether a call may go to the AI server now. Must be followed by {@link #onComplete} for every
+     * permitted call.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < TimeUnit.MILLISECONDS.toNanos(openDurationMs)) {
+                rejectedCalls.increment();
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                rejectedCalls.increment();
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onComplete(long latencyNanos, boolean error) {
+        boolean slow = latencyNanos > TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        boolean failed = error || slow;
+        if (error) {
+            failedCalls.increment();
+        } else if (slow) {
+            slowCalls.increment();
+        } else {
+            successfulCalls.increment();
+        }
+
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (failed) {
+                transitionTo(State.OPEN);
+            } else {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call admitted before the breaker opened; it no longer affects the state.
+            return;
+        }
+
+        record(failed);
+        if (recorded >= Math.max(minimumCalls, 1) && (double) failures / recorded >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("latencyBudgetMs", latencyBudgetMs);
+        stats.put("windowCalls", recorded);
+        stats.put("windowFailureRate", recorded == 0 ? 0.0 : (double) failures / recorded);
+        stats.put("successfulCalls", successfulCalls.sum());
+        stats.put("slowCalls", slowCalls.sum());
+        stats.put("failedCalls", failedCalls.sum());
+        stats.put("rejectedCalls", rejectedCalls.sum());
+        return stats;
+    }
+
+    private void record(boolean failed) {
+        if (outcomes == null) {
+            outcomes = new boolean[Math.max(windowSize, 1)];
+        }
+        if (recorded == outcomes.length) {
+            if (outcomes[cursor]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[cursor] = failed;
+        if (failed) {
+            failures++;
+        }
+        cursor = (cursor + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State next) {
+        if (state == next) {
+            return;
+        }
+        logger.info("AI circuit breaker {} -> {}", state, next);
+        state = next;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (next != State.HALF_OPEN) {
+            recorded = 0;
+            cursor = 0;
+            failures = 0;
+            probeInFlight = false;
+        }
+    }
+}
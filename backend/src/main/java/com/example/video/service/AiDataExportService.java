@@ -1,29 +1,54 @@
 package com.example.video.service;
 
-import com.example.video.model.User;
-import com.example.video.model.Video;
-import com.example.video.model.VideoCategory;
 import com.example.video.repository.FollowRepository;
 import com.example.video.repository.UserRepository;
 import com.example.video.repository.VideoRepository;
 import com.example.video.repository.VideoViewRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Exports user_features.csv and item_categories.csv for AI training.
+ *
+ * The user and video id spaces are split into equal UUID ranges. Each (file, range) partition is
+ * streamed with keyset pagination into its own part file on a bounded executor, and recorded in a
+ * manifest once complete. When every partition is done the parts are concatenated behind the
+ * header and atomically renamed over the published CSV. An export that is interrupted leaves its
+ * manifest behind, and the next run only redoes the partitions that had not completed.
+ */
 @Service
 public class AiDataExportService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AiDataExportService.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -37,8 +62,49 @@ public class AiDataExportService {
     private FollowRepository followRepository;
 
     private static final String CSV_DIR = "/app/data/data_raw";
-    private static final String USER_FEATURES_FILE = CSV_DIR + "/user_features.csv";
-    private static final String ITEM_CATEGORIES_FILE = CSV_DIR + "/item_categories.csv";
+    private static final Path WORK_DIR = Paths.get(CSV_DIR, ".export-work");
+    private static final Path MANIFEST_FILE = WORK_DIR.resolve("manifest.properties");
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+    private static final String UNKNOWN_ONEHOT_FEATS = ",UNKNOWN".repeat(18);
+
+    private enum ExportFile {
+        USERS("user_features"),
+        ITEMS("item_categories");
+
+        private final String baseName;
+
+        ExportFile(String baseName) {
+            this.baseName = baseName;
+        }
+    }
+
+    @Value("${ai.export.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${ai.export.partitions:16}")
+    private int partitionCount;
+
+    @Value("${ai.export.parallelism:4}")
+    private int parallelism;
+
+    @Value("${ai.export.resume-max-age-hours:24}")
+    private long resumeMaxAgeHours;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final AtomicInteger completedPartitions = new AtomicInteger();
+    private volatile String state = "idle";
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String lastError;
+    private volatile long estimatedRows;
+    private volatile long resumedRows;
+    private volatile int resumedPartitions;
+
+    private ExecutorService coordinator;
+    private ExecutorService partitionExecutor;
 
     public AiDataExportService() {
         try {
@@ -51,92 +117,406 @@ public class AiDataExportService {
         }
     }
 
-    // Cron job runs every day at 2:00 AM server time
+    @PostConstruct
+    void start() {
+        partitionCount = Math.min(Math.max(partitionCount, 1), 65536);
+        coordinator = Executors.newSingleThreadExecutor(JobWorkers.daemonThreads("ai-export-coordinator"));
+        partitionExecutor = Executors.newFixedThreadPool(Math.max(parallelism, 1), JobWorkers.daemonThreads("ai-export-worker"));
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        partitionExecutor.shutdownNow();
+    }
+
+    // Cron job runs every day at 2:00 AM server time; the export runs on the coordinator so the
+    // shared scheduler threads keep serving the other @Scheduled jobs meanwhile
     @Scheduled(cron = "0 0 2 * * ?")
     public void exportDataForAiTraining() {
-        System.out.println("Starting AI Nightly Export Process...");
-        exportUserFeatures();
-        exportItemCategories();
-        System.out.println("AI Nightly Export Completed.");
-    }
-
-    public void exportItemCategories() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ITEM_CATEGORIES_FILE))) {
-            writer.println("item_id,feat");
-            
-            List<Video> videos = videoRepository.findAll();
-            for (Video video : videos) {
-                if (video.getNumericId() == null) continue;
-                
+        if (!startExport()) {
+            logger.info("AI export already running, skipping scheduled run");
+        }
+    }
+
+    /**
+     * Starts the export in the background. Returns false if an export is already running.
+     */
+    public boolean startExport() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            resetProgress();
+            coordinator.execute(() -> {
+                try {
+                    runExport();
+                } finally {
+                    running.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getExportStatus() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long rows = rowsWritten.sum();
+        double elapsedSeconds = started == null ? 0
+                : Duration.between(started, finished != null ? finished : Instant.now()).toMillis() / 1000.0;
+        double rowsPerSecond = elapsedSeconds > 0 ? rows / elapsedSeconds : 0;
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("startedAt", started != null ? started.toString() : null);
+        status.put("finishedAt", finished != null ? finished.toString() : null);
+        status.put("partitions", partitionCount * ExportFile.values().length);
+        status.put("completedPartitions", completedPartitions.get());
+        status.put("resumedPartitions", resumedPartitions);
+        status.put("rowsWritten", rows);
+        status.put("resumedRows", resumedRows);
+        status.put("estimatedRows", estimatedRows);
+        status.put("rowsPerSecond", Math.round(rowsPerSecond));
+        if ("running".equals(state) && rowsPerSecond > 0) {
+            long remaining = Math.max(estimatedRows - resumedRows - rows, 0);
+            status.put("etaSeconds", Math.round(remaining / rowsPerSecond));
+        } else {
+            status.put("etaSeconds", null);
+        }
+        status.put("error", lastError);
+        return status;
+    }
+
+    private void resetProgress() {
+        state = "running";
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastError = null;
+        estimatedRows = 0;
+        resumedRows = 0;
+        resumedPartitions = 0;
+        rowsWritten.reset();
+        completedPartitions.set(0);
+        aborted.set(false);
+    }
+
+    private void runExport() {
+        logger.info("Starting AI export ({} partitions per file, parallelism {})", partitionCount, parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            estimatedRows = userRepository.count() + videoRepository.count();
+            Properties manifest = loadManifest();
+
+            for (ExportFile file : ExportFile.values()) {
+                for (int partition = 0; partition < partitionCount; partition++) {
+                    String done = manifest.getProperty(manifestKey(file, partition));
+                    if (done != null && Files.exists(partFile(file, partition))) {
+                        resumedPartitions++;
+                        resumedRows += Long.parseLong(done);
+                        completedPartitions.incrementAndGet();
+                        continue;
+                    }
+                    int p = partition;
+                    futures.add(partitionExecutor.submit(() -> {
+                        exportPartition(file, p, manifest);
+                        return null;
+                    }));
+                }
+            }
+            if (resumedPartitions > 0) {
+                logger.info("Resuming AI export: {} partitions already complete", resumedPartitions);
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+
+            for (ExportFile file : ExportFile.values()) {
+                publish(file);
+            }
+            deleteWorkDir();
+
+            finish("completed", null);
+            logger.info("AI export completed: {} rows written", rowsWritten.sum());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(futures);
+            finish("failed", "Interrupted");
+        } catch (Exception e) {
+            abort(futures);
+            finish("failed", e.getMessage());
+            logger.error("AI export failed; completed partitions will be reused by the next run", e);
+        }
+    }
+
+    private void finish(String finalState, String error) {
+        finishedAt = Instant.now();
+        lastError = error;
+        state = finalState;
+    }
+
+    /**
+     * Stops the remaining partitions at their next chunk and waits for them, so a following run
+     * never races with a partition of this one.
+     */
+    private void abort(List<Future<?>> futures) {
+        aborted.set(true);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ignored) {
+                // Already reported through the first failure
+            }
+        }
+    }
+
+    private void exportPartition(ExportFile file, int partition, Properties manifest) throws IOException {
+        UUID afterId = partition == 0 ? FIRST_ID : partitionLastId(partition - 1);
+        UUID lastId = partitionLastId(partition);
+        Path part = partFile(file, partition);
+        Path tmp = part.resolveSibling(part.getFileName() + ".tmp");
+
+        if (aborted.get()) {
+            return;
+        }
+        long rows;
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            rows = file == ExportFile.USERS
+                    ? writeUserFeatureRows(writer, afterId, lastId)
+                    : writeItemCategoryRows(writer, afterId, lastId);
+        }
+        Files.move(tmp, part, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        synchronized (manifest) {
+            manifest.setProperty(manifestKey(file, partition), Long.toString(rows));
+            saveManifest(manifest);
+        }
+        completedPartitions.incrementAndGet();
+    }
+
+    /**
+     * Streams videos in (afterId, lastId] in id order, {@code chunkSize} at a time; one query per chunk.
+     */
+    private long writeItemCategoryRows(BufferedWriter writer, UUID afterId, UUID lastId) throws IOException {
+        long rows = 0;
+        List<Object[]> chunk;
+        do {
+            chunk = videoRepository.findExportChunk(afterId, lastId, chunkSize);
+            for (Object[] row : chunk) {
+                int numericId = ((Number) row[1]).intValue();
+
                 // Original category value for CSV: shiftedValue - 1
                 // E.g., Unknown (0) -> -1, Daily Life (1) -> 0
-                int shiftedValue = video.getCategoryId() != null ? video.getCategoryId() : 0;
+                int shiftedValue = row[2] != null ? ((Number) row[2]).intValue() : 0;
                 int originalValue = shiftedValue - 1;
-                
+
                 // Format: item_id,"[feat0, feat1, feat2, feat3]" where others are -1
-                String featList = String.format("[%d, -1, -1, -1]", originalValue);
-                
-                writer.printf("%d,\"%s\"%n", video.getNumericId(), featList);
+                writer.write(numericId + ",\"[" + originalValue + ", -1, -1, -1]\"");
+                writer.newLine();
             }
-        } catch (IOException e) {
-            System.err.println("Error exporting item_categories.csv: " + e.getMessage());
-        }
+            if (!chunk.isEmpty()) {
+                afterId = (UUID) chunk.get(chunk.size() - 1)[0];
+            }
+            rows += chunk.size();
+            rowsWritten.add(chunk.size());
+            checkNotAborted();
+        } while (chunk.size() == chunkSize);
+        return rows;
     }
 
-    public void exportUserFeatures() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USER_FEATURES_FILE))) {
-            // Build header
-            StringBuilder header = new StringBuilder();
-            header.append("user_id,user_active_degree,is_live_streamer,is_video_author,")
-                  .append("follow_user_num_range,fans_user_num_range,friend_user_num_range,register_days_range");
-            for (int i = 0; i < 18; i++) {
-                header.append(",onehot_feat").append(i);
+    /**
+     * Streams users in (afterId, lastId] in id order, {@code chunkSize} at a time. Each chunk costs
+     * five queries: the users themselves plus one GROUP BY count per aggregate (views, videos,
+     * following, followers), joined in memory by user id.
+     */
+    private long writeUserFeatureRows(BufferedWriter writer, UUID afterId, UUID lastId) throws IOException {
+        long rows = 0;
+        List<Object[]> chunk;
+        do {
+            chunk = userRepository.findExportChunk(afterId, lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
             }
-            writer.println(header.toString());
+            List<UUID> userIds = chunk.stream().map(row -> (UUID) row[0]).collect(Collectors.toList());
+            Map<UUID, Long> viewCounts = toCountMap(videoViewRepository.countByUserIds(userIds));
+            Map<UUID, Long> videoCounts = toCountMap(videoRepository.countByUserIds(userIds));
+            Map<UUID, Long> followingCounts = toCountMap(followRepository.countFollowingByFollowerIds(userIds));
+            Map<UUID, Long> followerCounts = toCountMap(followRepository.countFollowersByFollowingIds(userIds));
 
-            List<User> users = userRepository.findAll();
-            for (User user : users) {
-                if (user.getNumericId() == null) continue;
+            for (Object[] user : chunk) {
+                UUID userId = (UUID) user[0];
+                int numericId = ((Number) user[1]).intValue();
 
-                long totalViews = videoViewRepository.countByUserId(user.getId());
+                long totalViews = viewCounts.getOrDefault(userId, 0L);
                 int activeDegree = 0;
                 if (totalViews >= 200) activeDegree = 3;
                 else if (totalViews >= 50) activeDegree = 2;
                 else if (totalViews >= 10) activeDegree = 1;
 
-                long videoCount = videoRepository.countByUserId(user.getId());
-                int isVideoAuthor = videoCount > 0 ? 1 : 0;
+                int isVideoAuthor = videoCounts.getOrDefault(userId, 0L) > 0 ? 1 : 0;
 
-                long followingCount = followRepository.countByFollowerId(user.getId());
+                long followingCount = followingCounts.getOrDefault(userId, 0L);
                 int followRange = calculateRange(followingCount, new long[]{0, 10, 50, 100, 500});
 
-                long followerCount = followRepository.countByFollowingId(user.getId());
+                long followerCount = followerCounts.getOrDefault(userId, 0L);
                 int fansRange = calculateRange(followerCount, new long[]{0, 10, 50, 100, 500});
 
-                long daysSinceReg = user.getCreatedAt() != null
-                        ? ChronoUnit.DAYS.between(user.getCreatedAt(), LocalDateTime.now())
-                        : 0;
+                long daysSinceReg = user[2] != null ? ((Number) user[2]).longValue() : 0;
                 int regRange = calculateRange(daysSinceReg, new long[]{0, 7, 30, 90, 365});
 
                 StringBuilder row = new StringBuilder();
-                row.append(user.getNumericId()).append(",")
+                row.append(numericId).append(",")
                    .append(activeDegree).append(",")
                    .append(0).append(",") // is_live_streamer
                    .append(isVideoAuthor).append(",")
                    .append(followRange).append(",")
                    .append(fansRange).append(",")
                    .append(0).append(",") // friend_user_num_range
-                   .append(regRange);
-                   
-                for (int i = 0; i < 18; i++) {
-                    row.append(",UNKNOWN"); // onehot_feat
+                   .append(regRange)
+                   .append(UNKNOWN_ONEHOT_FEATS);
+
+                writer.write(row.toString());
+                writer.newLine();
+            }
+            afterId = (UUID) chunk.get(chunk.size() - 1)[0];
+            rows += chunk.size();
+            rowsWritten.add(chunk.size());
+            checkNotAborted();
+        } while (chunk.size() == chunkSize);
+        return rows;
+    }
+
+    private void checkNotAborted() {
+        if (aborted.get()) {
+            throw new CancellationException("AI export aborted");
+        }
+    }
+
+    private static String header(ExportFile file) {
+        if (file == ExportFile.ITEMS) {
+            return "item_id,feat";
+        }
+        StringBuilder header = new StringBuilder();
+        header.append("user_id,user_active_degree,is_live_streamer,is_video_author,")
+              .append("follow_user_num_range,fans_user_num_range,friend_user_num_range,register_days_range");
+        for (int i = 0; i < 18; i++) {
+            header.append(",onehot_feat").append(i);
+        }
+        return header.toString();
+    }
+
+    /**
+     * Concatenates the header and all part files into a temp file next to the target, then renames
+     * it over the published CSV so readers never see a partial file.
+     */
+    private void publish(ExportFile file) throws IOException {
+        Path target = Paths.get(CSV_DIR, file.baseName + ".csv");
+        Path tmp = Paths.get(CSV_DIR, file.baseName + ".csv.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.wrap((header(file) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (int partition = 0; partition < partitionCount; partition++) {
+                try (FileChannel in = FileChannel.open(partFile(file, partition), StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
                 }
-                
-                writer.println(row.toString());
             }
-        } catch (IOException e) {
-            System.err.println("Error exporting user_features.csv: " + e.getMessage());
+            out.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The manifest of a previous, interrupted export, or a fresh one if there is none or it cannot
+     * be reused (different partitioning, or too old to mix with fresh partitions).
+     */
+    private Properties loadManifest() throws IOException {
+        Properties manifest = new Properties();
+        if (Files.exists(MANIFEST_FILE)) {
+            try (InputStream in = Files.newInputStream(MANIFEST_FILE)) {
+                manifest.load(in);
+            }
+            long createdAt = Long.parseLong(manifest.getProperty("createdAt", "0"));
+            boolean samePartitioning = Integer.toString(partitionCount).equals(manifest.getProperty("partitions"));
+            boolean fresh = System.currentTimeMillis() - createdAt < Duration.ofHours(resumeMaxAgeHours).toMillis();
+            if (samePartitioning && fresh) {
+                return manifest;
+            }
+            logger.info("Discarding previous AI export state (partitions match: {}, fresh: {})", samePartitioning, fresh);
+        }
+
+        deleteWorkDir();
+        Files.createDirectories(WORK_DIR);
+        manifest.clear();
+        manifest.setProperty("partitions", Integer.toString(partitionCount));
+        manifest.setProperty("createdAt", Long.toString(System.currentTimeMillis()));
+        saveManifest(manifest);
+        return manifest;
+    }
+
+    private void saveManifest(Properties manifest) throws IOException {
+        Path tmp = MANIFEST_FILE.resolveSibling("manifest.properties.tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            manifest.store(out, "AI export progress");
+        }
+        Files.move(tmp, MANIFEST_FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteWorkDir() throws IOException {
+        if (!Files.exists(WORK_DIR)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(WORK_DIR)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(WORK_DIR);
+    }
+
+    /**
+     * Inclusive upper bound of a partition. Partitions split the UUID space evenly on its top 16 bits;
+     * ids are random (uuid_generate_v4), so partitions hold similar row counts.
+     */
+    private UUID partitionLastId(int partition) {
+        if (partition >= partitionCount - 1) {
+            return LAST_ID;
+        }
+        long nextPrefix = (long) (partition + 1) * 65536 / partitionCount;
+        return new UUID((nextPrefix << 48) - 1, -1L);
+    }
+
+    private static Path partFile(ExportFile file, int partition) {
+        return WORK_DIR.resolve(String.format("%s.part-%05d.csv", file.baseName, partition));
+    }
+
+    private static String manifestKey(ExportFile file, int partition) {
+        return file.baseName + "." + partition;
+    }
+
+    private static Map<UUID, Long> toCountMap(List<Object[]> rows) {
+        Map<UUID, Long> counts = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            counts.put((UUID) row[0], ((Number) row[1]).longValue());
         }
+        return counts;
     }
 
     private int calculateRange(long value, long[] thresholds) {
@@ -0,0 +1,260 @@
+package com.example.video.service;
+
+import com.example.video.dto.AiBatchPredictionRequest;
+import com.example.video.dto.AiBatchPredictionResponse;
+import com.example.video.dto.AiPredictionRequest;
+import com.example.video.dto.AiPredictionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP client for the AI server's /predict endpoint.
+ *
+ * Requests share one keep-alive connection pool and are micro-batched: concurrent calls that
+ * arrive within the batch window are sent as a single POST /predict/batch, and each caller's
+ * future completes with its own slice of the batch response. A batch of one is sent to the plain
+ * /predict endpoint, and an AI server without the batch endpoint is detected once and then served
+ * with individual calls.
+ */
+@Service
+@ConditionalOnProperty(name = "ai.ranking.model", havingValue = "remote", matchIfMissing = true)
+public class AiPredictionClient implements RankingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiPredictionClient.class);
+
+    @Value("${ai.server.url:http://ai-server:8000}")
+    private String aiServerUrl;
+
+    @Value("${ai.predict.batch-window-ms:3}")
+    private long batchWindowMs;
+
+    @Value("${ai.predict.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${ai.predict.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${ai.predict.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${ai.predict.read-timeout-ms:4000}")
+    private long readTimeoutMs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Histogram batchSizes = new Histogram(1, 2, 4, 8, 16, 32, 64, 128);
+    private final Histogram queueLatencyMicros = new Histogram(100, 500, 1_000, 2_000, 3_000, 5_000, 10_000, 50_000, 100_000);
+    private final Histogram requestLatencyMs = new Histogram(5, 10, 25, 50, 100, 150, 250, 500, 1_000, 2_000, 4_000);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private HttpClient httpClient;
+    private BlockingQueue<PendingPrediction> queue;
+    private Thread dispatcher;
+    private volatile boolean running;
+    private volatile boolean batchEndpointAvailable = true;
+
+    @PostConstruct
+    void start() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "ai-predict-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        List<PendingPrediction> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.future.completeExceptionally(
+                new IllegalStateException("AI prediction client is shutting down")));
+    }
+
+    @Override
+    public String getName() {
+        return "remote";
+    }
+
+    /**
+     * Queues the request for the next batch. The future fails if the queue is full or the call fails.
+     */
+    @Override
+    public CompletableFuture<AiPredictionResponse> predictAsync(AiPredictionRequest request) {
+        PendingPrediction pending = new PendingPrediction(request);
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            pending.future.completeExceptionally(new RejectedExecutionException("AI prediction queue is full"));
+        }
+        return pending.future;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("model", getName());
+        stats.put("queued", queue.size());
+        stats.put("rejected", rejected.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batchEndpointAvailable", batchEndpointAvailable);
+        stats.put("batchSize", batchSizes.snapshot());
+        stats.put("queueLatencyMicros", queueLatencyMicros.snapshot());
+        stats.put("requestLatencyMs", requestLatencyMs.snapshot());
+        return stats;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                PendingPrediction first = queue.take();
+                List<PendingPrediction> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+
+                long deadline = first.enqueuedAt + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingPrediction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("AI prediction dispatcher error", e);
+            }
+        }
+    }
+
+    private void dispatch(List<PendingPrediction> batch) {
+        long now = System.nanoTime();
+        batch.forEach(pending -> queueLatencyMicros.record((now - pending.enqueuedAt) / 1_000));
+        batchSizes.record(batch.size());
+
+        if (batch.size() == 1 || !batchEndpointAvailable) {
+            batch.forEach(this::sendSingle);
+        } else {
+            sendBatch(batch);
+        }
+    }
+
+    private void sendSingle(PendingPrediction pending) {
+        long startedAt = System.nanoTime();
+        post("/predict", pending.request)
+                .whenComplete((response, error) -> {
+                    requestLatencyMs.record((System.nanoTime() - startedAt) / 1_000_000);
+                    if (error != null) {
+                        failed.increment();
+                        pending.future.completeExceptionally(error);
+                        return;
+                    }
+                    try {
+                        checkStatus(response);
+                        pending.future.complete(objectMapper.readValue(response.body(), AiPredictionResponse.class));
+                    } catch (Exception e) {
+                        failed.increment();
+                        pending.future.completeExceptionally(e);
+                    }
+                });
+    }
+
+    private void sendBatch(List<PendingPrediction> batch) {
+        AiBatchPredictionRequest batchRequest = new AiBatchPredictionRequest();
+        batchRequest.setRequests(batch.stream().map(pending -> pending.request).toList());
+
+        long startedAt = System.nanoTime();
+        post("/predict/batch", batchRequest)
+                .whenComplete((response, error) -> {
+                    requestLatencyMs.record((System.nanoTime() - startedAt) / 1_000_000);
+                    if (error != null) {
+                        failed.add(batch.size());
+                        batch.forEach(pending -> pending.future.completeExceptionally(error));
+                        return;
+                    }
+                    if (response.statusCode() == 404) {
+                        logger.warn("AI server has no /predict/batch endpoint, falling back to single predictions");
+                        batchEndpointAvailable = false;
+                        batch.forEach(this::sendSingle);
+                        return;
+                    }
+                    try {
+                        checkStatus(response);
+                        AiBatchPredictionResponse batchResponse =
+                                objectMapper.readValue(response.body(), AiBatchPredictionResponse.class);
+                        List<AiPredictionResponse> results = batchResponse.getResults();
+                        if (results == null || results.size() != batch.size()) {
+                            throw new IllegalStateException("AI batch response size does not match request size");
+                        }
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).future.complete(results.get(i));
+                        }
+                    } catch (Exception e) {
+                        failed.add(batch.size());
+                        batch.forEach(pending -> pending.future.completeExceptionally(e));
+                    }
+                });
+    }
+
+    private CompletableFuture<HttpResponse<String>> post(String path, Object body) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(aiServerUrl + path))
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void checkStatus(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("AI server returned HTTP " + response.statusCode());
+        }
+    }
+
+    private static final class PendingPrediction {
+        private final AiPredictionRequest request;
+        private final CompletableFuture<AiPredictionResponse> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        private PendingPrediction(AiPredictionRequest request) {
+            this.request = request;
+        }
+    }
+}
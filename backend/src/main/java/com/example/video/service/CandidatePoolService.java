@@ -0,0 +1,190 @@
+package com.example.video.service;
+
+import com.example.video.repository.FollowRepository;
+import com.example.video.repository.VideoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory pool of active video ids used to draw feed candidates without ORDER BY RANDOM().
+ *
+ * The pool is rebuilt periodically from a single scan of active videos and published as an
+ * immutable snapshot: a sharded array of all ids plus an id list per creator. Sampling k
+ * candidates then costs O(k) random index lookups instead of sorting the videos table.
+ */
+@Service
+public class CandidatePoolService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CandidatePoolService.class);
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Value("${recommendation.candidate-pool.shard-size:4096}")
+    private int shardSize;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Scheduled(initialDelayString = "${recommendation.candidate-pool.initial-delay-ms:0}",
+            fixedDelayString = "${recommendation.candidate-pool.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            long startedAt = System.nanoTime();
+            List<Object[]> rows = videoRepository.findActiveVideoIdsWithOwner();
+            snapshot = Snapshot.build(rows, Math.max(shardSize, 1));
+            logger.debug("Candidate pool refreshed: {} videos, {} creators in {} ms",
+                    snapshot.size, snapshot.videosByCreator.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next refresh will retry.
+            logger.warn("Candidate pool refresh failed, keeping {} pooled videos", snapshot.size, e);
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot.loaded;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * Up to {@code limit} random active videos, skipping {@code excludeIds}.
+     */
+    public List<UUID> sampleActive(int limit, Set<UUID> excludeIds) {
+        Snapshot current = snapshot;
+        return sample(current::get, current.size, limit, excludeIds);
+    }
+
+    /**
+     * Up to {@code limit} random active videos uploaded by creators the user follows.
+     */
+    public List<UUID> sampleFollowed(UUID userId, int limit) {
+        Snapshot current = snapshot;
+        List<UUID[]> lists = new ArrayList<>();
+        int total = 0;
+        for (UUID creatorId : followRepository.findFollowingIdsByFollowerId(userId)) {
+            UUID[] videoIds = current.videosByCreator.get(creatorId);
+            if (videoIds != null) {
+                lists.add(videoIds);
+                total += videoIds.length;
+            }
+        }
+        if (total == 0) {
+            return Collections.emptyList();
+        }
+
+        int[] offsets = new int[lists.size()];
+        int running = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            offsets[i] = running;
+            running += lists.get(i).length;
+        }
+        return sample(index -> {
+            int list = Arrays.binarySearch(offsets, index);
+            if (list < 0) {
+                list = -list - 2;
+            }
+            return lists.get(list)[index - offsets[list]];
+        }, total, limit, Collections.emptySet());
+    }
+
+    /**
+     * Draws distinct random elements by index. Small samples use rejection sampling (O(k) expected);
+     * samples that cover most of the population fall back to a partial Fisher-Yates shuffle.
+     */
+    private List<UUID> sample(IntFunction<UUID> elementAt, int populationSize, int limit, Set<UUID> excludeIds) {
+        if (populationSize <= 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<UUID> result = new ArrayList<>(Math.min(limit, populationSize));
+
+        if ((long) limit * 2 >= populationSize) {
+            int[] indexes = new int[populationSize];
+            for (int i = 0; i < populationSize; i++) {
+                indexes[i] = i;
+            }
+            for (int i = 0; i < populationSize && result.size() < limit; i++) {
+                int swap = i + random.nextInt(populationSize - i);
+                int picked = indexes[swap];
+                indexes[swap] = indexes[i];
+                UUID id = elementAt.apply(picked);
+                if (!excludeIds.contains(id)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        Set<Integer> seenIndexes = new HashSet<>();
+        int maxAttempts = limit * 4 + excludeIds.size() * 2 + 16;
+        for (int attempt = 0; attempt < maxAttempts && result.size() < limit; attempt++) {
+            int index = random.nextInt(populationSize);
+            if (!seenIndexes.add(index)) {
+                continue;
+            }
+            UUID id = elementAt.apply(index);
+            if (!excludeIds.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new UUID[0][], 0, 1, Collections.emptyMap(), false);
+
+        private final UUID[][] shards;
+        private final int size;
+        private final int shardSize;
+        private final Map<UUID, UUID[]> videosByCreator;
+        private final boolean loaded;
+
+        private Snapshot(UUID[][] shards, int size, int shardSize, Map<UUID, UUID[]> videosByCreator, boolean loaded) {
+            this.shards = shards;
+            this.size = size;
+            this.shardSize = shardSize;
+            this.videosByCreator = videosByCreator;
+            this.loaded = loaded;
+        }
+
+        private static Snapshot build(List<Object[]> rows, int shardSize) {
+            int size = rows.size();
+            UUID[][] shards = new UUID[(size + shardSize - 1) / shardSize][];
+            for (int shard = 0; shard < shards.length; shard++) {
+                shards[shard] = new UUID[Math.min(shardSize, size - shard * shardSize)];
+            }
+
+            Map<UUID, List<UUID>> byCreator = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                Object[] row = rows.get(i);
+                UUID videoId = (UUID) row[0];
+                shards[i / shardSize][i % shardSize] = videoId;
+                if (row[1] != null) {
+                    byCreator.computeIfAbsent((UUID) row[1], key -> new ArrayList<>()).add(videoId);
+                }
+            }
+
+            Map<UUID, UUID[]> videosByCreator = new HashMap<>(byCreator.size() * 2);
+            byCreator.forEach((creatorId, videoIds) -> videosByCreator.put(creatorId, videoIds.toArray(new UUID[0])));
+            return new Snapshot(shards, size, shardSize, videosByCreator, true);
+        }
+
+        private UUID get(int index) {
+            return shards[index / shardSize][index % shardSize];
+        }
+    }
+}
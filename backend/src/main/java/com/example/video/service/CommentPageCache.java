@@ -0,0 +1,133 @@
+package com.example.video.service;
+
+import com.example.video.dto.CommentPage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Bounded TTL cache of videoId → first page of its comment threads.
+ *
+ * Opening the comment sheet of a video always asks for the same first page, so hot videos are
+ * served from memory while the LRU segments let cold ones fall out. Adding or deleting a comment
+ * invalidates the video; as in {@link VideoMetadataCache}, a load that started before an
+ * invalidation is returned to its caller but not cached. Callers must not modify cached pages.
+ */
+@Service
+public class CommentPageCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    @Value("${comments.first-page-cache.max-entries:2000}")
+    private int maxEntries;
+
+    @Value("${comments.first-page-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private Segment[] segments;
+
+    @PostConstruct
+    void init() {
+        segments = new Segment[SEGMENT_COUNT];
+        int perSegment = Math.max(maxEntries / SEGMENT_COUNT, 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public CommentPage get(UUID videoId, Function<UUID, CommentPage> loader) {
+        Segment segment = segmentFor(videoId);
+        long now = System.nanoTime();
+        Entry entry = segment.get(videoId);
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.increment();
+            return entry.page;
+        }
+
+        misses.increment();
+        long generation = invalidationCount.get();
+        CommentPage page = loader.apply(videoId);
+        segment.putIfCurrent(videoId,
+                new Entry(page, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)),
+                () -> invalidationCount.get() == generation);
+        return page;
+    }
+
+    public void invalidate(UUID videoId) {
+        if (videoId == null) {
+            return;
+        }
+        Segment segment = segmentFor(videoId);
+        segment.remove(videoId, invalidationCount::incrementAndGet);
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private Segment segmentFor(UUID videoId) {
+        return segments[Math.floorMod(videoId.hashCode(), segments.length)];
+    }
+
+    private record Entry(CommentPage page, long expiresAt) {
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<UUID, Entry> entries;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        private synchronized Entry get(UUID key) {
+            return entries.get(key);
+        }
+
+        private synchronized void putIfCurrent(UUID key, Entry entry, BooleanSupplier current) {
+            if (current.getAsBoolean()) {
+                entries.put(key, entry);
+            }
+        }
+
+        private synchronized void remove(UUID key, Runnable bumpGeneration) {
+            bumpGeneration.run();
+            entries.remove(key);
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.video.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs ffmpeg/ffprobe style commands with a deadline.
+ */
+final class ExternalProcess {
+
+    private ExternalProcess() {
+    }
+
+    /**
+     * Runs {@code command} with stdout and stderr written to {@code output}, so a chatty process
+     * can never block on a full pipe. Fails on timeout (the process is killed) or a non-zero exit,
+     * with the tail of the output in the message.
+     */
+    static void run(List<String> command, Path output, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        try {
+            if (!process.waitFor(timeout, unit)) {
+                throw new IOException(command.get(0) + " timed out after " + timeout + " " + unit.name().toLowerCase());
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+        if (process.exitValue() != 0) {
+            String log = Files.readString(output, StandardCharsets.UTF_8);
+            throw new IOException(command.get(0) + " exited with " + process.exitValue() + ": "
+                    + log.substring(Math.max(log.length() - 500, 0)).trim());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.video.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free fixed-bucket histogram for in-process metrics.
+ *
+ * Each bucket counts values less than or equal to its upper bound; values above the last bound
+ * land in an overflow bucket. Percentiles are approximated by the upper bound of the bucket
+ * that contains them.
+ */
+public class Histogram {
+
+    private final long[] upperBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(long... upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int index = 0;
+        while (index < upperBounds.length && value > upperBounds[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", total);
+        result.put("mean", total == 0 ? 0.0 : (double) sum.sum() / total);
+        result.put("p50", percentile(counts, total, 0.50));
+        result.put("p95", percentile(counts, total, 0.95));
+        result.put("p99", percentile(counts, total, 0.99));
+
+        Map<String, Long> bucketCounts = new LinkedHashMap<>();
+        for (int i = 0; i < upperBounds.length; i++) {
+            bucketCounts.put("le_" + upperBounds[i], counts[i]);
+        }
+        bucketCounts.put("overflow", counts[upperBounds.length]);
+        result.put("buckets", bucketCounts);
+        return result;
+    }
+
+    private Object percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < upperBounds.length ? upperBounds[i] : "overflow";
+            }
+        }
+        return "overflow";
+    }
+}
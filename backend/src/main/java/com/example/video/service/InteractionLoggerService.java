@@ -1,45 +1,310 @@
 package com.example.video.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.io.FileWriter;
+
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Appends view interactions to the AI training CSV (big_matrix_processed.csv).
+ *
+ * Request threads only enqueue the interaction on a lock-free queue. A single writer thread
+ * drains it, encodes rows into a reusable direct buffer and writes them through one open
+ * FileChannel, forcing to disk every fsync interval. When the queue is full new interactions are
+ * dropped and counted rather than blocking the request. The file can optionally be rotated by
+ * size or by day; rotated files keep the header and get a timestamp suffix.
+ */
 @Service
 public class InteractionLoggerService {
 
-    private static final String CSV_DIR = "/app/data/data_raw";
-    private static final String CSV_FILE = CSV_DIR + "/big_matrix_processed.csv";
+    private static final Logger logger = LoggerFactory.getLogger(InteractionLoggerService.class);
+
+    private static final String CSV_NAME = "big_matrix_processed";
     private static final String HEADER = "user_id,item_id,timestamp,duration_normed,watch_ratio_normed";
+    private static final DateTimeFormatter ROTATION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MAX_ROW_BYTES = 128;
+
+    @Value("${interaction-log.dir:/app/data/data_raw}")
+    private String csvDir;
+
+    @Value("${interaction-log.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${interaction-log.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${interaction-log.fsync-interval-ms:1000}")
+    private long fsyncIntervalMs;
+
+    @Value("${interaction-log.rotate.max-bytes:0}")
+    private long rotateMaxBytes;
+
+    @Value("${interaction-log.rotate.daily:false}")
+    private boolean rotateDaily;
+
+    private final Queue<Interaction> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    private Path csvFile;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Writer thread state
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int rowsInBuffer;
+    private long fileSize;
+    private LocalDate fileDay;
+    private long lastFsyncAt;
+    private boolean dirty;
+
+    @PostConstruct
+    void start() {
+        csvFile = Paths.get(csvDir, CSV_NAME + ".csv");
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MAX_ROW_BYTES));
+        try {
+            openChannel();
+        } catch (IOException e) {
+            logger.error("Error initializing {}: {}", csvFile, e.getMessage());
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "interaction-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
 
-    public InteractionLoggerService() {
-        initCsv();
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public void logInteraction(Integer userId, Integer itemId, long timestamp, Float duration, Float watchRatio) {
+        int depth = queued.incrementAndGet();
+        if (depth > queueCapacity || !running) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(new Interaction(userId, itemId, timestamp, duration, watchRatio));
+        enqueued.increment();
+        if (depth == 1) {
+            // The writer only parks once the queue is empty, so waking it on the first entry is enough.
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("file", csvFile.toString());
+        stats.put("queued", queued.get());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("writeErrors", writeErrors.sum());
+        stats.put("fsyncs", fsyncs.sum());
+        stats.put("rotations", rotations.sum());
+        return stats;
+    }
+
+    private void writeLoop() {
+        while (running || queued.get() > 0) {
+            Interaction interaction = queue.poll();
+            if (interaction != null) {
+                queued.decrementAndGet();
+                append(interaction);
+                continue;
+            }
+
+            // Queue drained: hand the batch to the OS and fsync if due, then wait for more.
+            writeBuffer();
+            forceIfDue(false);
+            if (running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(fsyncIntervalMs, 1)));
+            }
+        }
+        writeBuffer();
+        forceIfDue(true);
+        closeChannel();
+    }
+
+    private void append(Interaction interaction) {
+        if (buffer.remaining() < MAX_ROW_BYTES) {
+            writeBuffer();
+            forceIfDue(false);
+        }
+        // Same row as "%d,%d,%d,%.2f,%.4f\n", encoded straight into the buffer.
+        putLong(interaction.userId());
+        buffer.put((byte) ',');
+        putLong(interaction.itemId());
+        buffer.put((byte) ',');
+        putLong(interaction.timestamp());
+        buffer.put((byte) ',');
+        putFixed(interaction.duration(), 2);
+        buffer.put((byte) ',');
+        putFixed(interaction.watchRatio(), 4);
+        buffer.put((byte) '\n');
+        rowsInBuffer++;
     }
 
-    private void initCsv() {
+    private void putFixed(float value, int decimals) {
+        if (!Float.isFinite(value)) {
+            buffer.put(String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        long scale = decimals == 2 ? 100L : 10_000L;
+        long scaled = Math.round(Math.abs((double) value) * scale);
+        if (value < 0 && scaled != 0) {
+            buffer.put((byte) '-');
+        }
+        putLong(scaled / scale);
+        buffer.put((byte) '.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 0; digit /= 10) {
+            buffer.put((byte) ('0' + fraction / digit % 10));
+        }
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                buffer.put("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            value = -value;
+        }
+        int start = buffer.position();
+        do {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits were written least significant first; reverse them in place.
+        for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+            byte tmp = buffer.get(i);
+            buffer.put(i, buffer.get(j));
+            buffer.put(j, tmp);
+        }
+    }
+
+    private void writeBuffer() {
+        if (rowsInBuffer == 0) {
+            return;
+        }
+        buffer.flip();
         try {
-            Path dir = Paths.get(CSV_DIR);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
+            rotateIfNeeded();
+            if (channel == null) {
+                openChannel();
             }
-            if (!Files.exists(Paths.get(CSV_FILE))) {
-                try (PrintWriter writer = new PrintWriter(new FileWriter(CSV_FILE))) {
-                    writer.println(HEADER);
-                }
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
             }
+            written.add(rowsInBuffer);
+            dirty = true;
+        } catch (IOException e) {
+            writeErrors.increment();
+            dropped.add(rowsInBuffer);
+            logger.error("Error logging {} interactions to {}: {}", rowsInBuffer, csvFile, e.getMessage());
+            closeChannel();
+        } finally {
+            buffer.clear();
+            rowsInBuffer = 0;
+        }
+    }
+
+    private void forceIfDue(boolean always) {
+        long now = System.nanoTime();
+        if (channel == null || !dirty
+                || (!always && now - lastFsyncAt < TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs))) {
+            return;
+        }
+        try {
+            channel.force(false);
+            fsyncs.increment();
+            dirty = false;
         } catch (IOException e) {
-            System.err.println("Error initializing interactions.csv: " + e.getMessage());
+            writeErrors.increment();
+            logger.error("Error syncing {}: {}", csvFile, e.getMessage());
+        }
+        lastFsyncAt = now;
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        boolean bySize = rotateMaxBytes > 0 && fileSize + buffer.remaining() > rotateMaxBytes;
+        boolean byDay = rotateDaily && !LocalDate.now().equals(fileDay);
+        if (!bySize && !byDay) {
+            return;
         }
+
+        forceIfDue(true);
+        closeChannel();
+        Path rotated = csvFile.resolveSibling(CSV_NAME + "-" + LocalDateTime.now().format(ROTATION_SUFFIX) + ".csv");
+        Files.move(csvFile, rotated, StandardCopyOption.ATOMIC_MOVE);
+        rotations.increment();
+        logger.info("Rotated interaction log to {}", rotated);
+        openChannel();
     }
 
-    public synchronized void logInteraction(Integer userId, Integer itemId, long timestamp, Float duration, Float watchRatio) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(CSV_FILE, true))) {
-            writer.printf("%d,%d,%d,%.2f,%.4f%n", userId, itemId, timestamp, duration, watchRatio);
+    private void openChannel() throws IOException {
+        Files.createDirectories(csvFile.getParent());
+        channel = FileChannel.open(csvFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        fileDay = LocalDate.now();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.wrap((HEADER + "\n").getBytes(StandardCharsets.US_ASCII));
+            while (header.hasRemaining()) {
+                fileSize += channel.write(header);
+            }
+            dirty = true;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
         } catch (IOException e) {
-            System.err.println("Error logging interaction to CSV: " + e.getMessage());
+            logger.warn("Error closing {}: {}", csvFile, e.getMessage());
         }
+        channel = null;
+    }
+
+    private record Interaction(int userId, int itemId, long timestamp, float duration, float watchRatio) {
     }
 }
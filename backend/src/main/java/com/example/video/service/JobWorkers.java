@@ -0,0 +1,106 @@
+package com.example.video.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Fixed pool of daemon workers fed from a persistent job table, plus the work-dir cleanup the
+ * media jobs share.
+ *
+ * {@link #dispatch()} claims jobs while a slot is free: {@code next} finds a candidate and
+ * {@code claim} moves it to processing, failing if another dispatcher (or instance) got there
+ * first. A worker dispatches again when it finishes, so a freed slot is refilled at once.
+ */
+final class JobWorkers {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobWorkers.class);
+
+    private final int size;
+    private final Semaphore slots;
+    private final ExecutorService executor;
+    private final Supplier<Optional<UUID>> next;
+    private final Predicate<UUID> claim;
+    private final Consumer<UUID> run;
+
+    JobWorkers(String threadPrefix, int workers, Supplier<Optional<UUID>> next,
+               Predicate<UUID> claim, Consumer<UUID> run) {
+        this.size = Math.max(workers, 1);
+        this.slots = new Semaphore(size);
+        this.executor = Executors.newFixedThreadPool(size, daemonThreads(threadPrefix));
+        this.next = next;
+        this.claim = claim;
+        this.run = run;
+    }
+
+    synchronized void dispatch() {
+        while (slots.tryAcquire()) {
+            Optional<UUID> jobId = next.get();
+            if (jobId.isEmpty()) {
+                slots.release();
+                return;
+            }
+            if (!claim.test(jobId.get())) {
+                slots.release();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    run.accept(jobId.get());
+                } finally {
+                    slots.release();
+                }
+                dispatch();
+            });
+        }
+    }
+
+    int busyWorkers() {
+        return size - slots.availablePermits();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete work file {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not clean work dir {}: {}", dir, e.getMessage());
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
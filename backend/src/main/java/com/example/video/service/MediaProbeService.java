@@ -0,0 +1,156 @@
+package com.example.video.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the duration and grabs a poster frame of an uploaded video.
+ *
+ * ffprobe and ffmpeg read the object through a presigned internal URL, so they only fetch the
+ * byte ranges they need (the container index, then the keyframe at the poster offset) instead of
+ * the whole file. The poster is scaled to each of {@code thumbnail-widths} in a single ffmpeg run
+ * and stored as {@code thumbnails/<name>/<width>.jpg}; the video's thumbnail URL points at the
+ * {@code default-thumbnail-width} one, the other sizes sit next to it. Probing is best effort: a
+ * failure is logged and leaves the fields empty rather than failing the upload.
+ */
+@Service
+public class MediaProbeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaProbeService.class);
+
+    @Value("${media-probe.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${transcode.ffprobe-path:ffprobe}")
+    private String ffprobePath;
+
+    @Value("${media-probe.thumbnail-widths:160,320,720}")
+    private List<Integer> thumbnailWidths;
+
+    @Value("${media-probe.default-thumbnail-width:320}")
+    private int defaultThumbnailWidth;
+
+    @Value("${media-probe.poster-offset-seconds:1}")
+    private double posterOffsetSeconds;
+
+    @Value("${media-probe.timeout-seconds:20}")
+    private long timeoutSeconds;
+
+    @Value("${media-probe.work-dir:/tmp/media-probe}")
+    private String workDir;
+
+    @Autowired
+    private MinioService minioService;
+
+    /**
+     * Probes {@code objectName}; fields that could not be read are null.
+     */
+    public MediaInfo probe(String objectName) {
+        if (!enabled) {
+            return new MediaInfo(null, null);
+        }
+
+        Path dir = Paths.get(workDir, UUID.randomUUID().toString());
+        Integer durationSeconds = null;
+        try {
+            Files.createDirectories(dir);
+            String url = minioService.presignInternalGetUrl(objectName, (int) Math.max(timeoutSeconds * 4, 60));
+
+            Map<String, String> format = readFormat(url, dir);
+            Double duration = parseDouble(format.get("duration"));
+            if (duration != null && duration > 0) {
+                durationSeconds = (int) Math.max(Math.round(duration), 1);
+            }
+
+            // Short clips take the poster from their middle instead.
+            double offset = duration != null && duration < posterOffsetSeconds * 2 ? duration / 2 : posterOffsetSeconds;
+            String name = objectName.contains(".") ? objectName.substring(0, objectName.lastIndexOf('.')) : objectName;
+            return new MediaInfo(durationSeconds, storeThumbnails(url, offset, name, dir));
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Media probe of {} failed: {}", objectName, e.getMessage());
+            return new MediaInfo(durationSeconds, null);
+        } finally {
+            JobWorkers.deleteRecursively(dir);
+        }
+    }
+
+    private Map<String, String> readFormat(String url, Path dir) throws IOException, InterruptedException {
+        Path output = dir.resolve("ffprobe.txt");
+        ExternalProcess.run(List.of(ffprobePath, "-v", "error",
+                "-show_entries", "format=duration", "-of", "default=noprint_wrappers=1", url),
+                output, timeoutSeconds, TimeUnit.SECONDS);
+        Map<String, String> values = new HashMap<>();
+        for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf('=');
+            if (separator > 0) {
+                values.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+            }
+        }
+        return values;
+    }
+
+    private String storeThumbnails(String url, double offset, String name, Path dir) throws IOException, InterruptedException {
+        List<Integer> widths = thumbnailWidths.stream().distinct().sorted().toList();
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(widths.size());
+        for (int i = 0; i < widths.size(); i++) {
+            filter.append("[s").append(i).append(']');
+        }
+        for (int i = 0; i < widths.size(); i++) {
+            filter.append(";[s").append(i).append("]scale=").append(widths.get(i)).append(":-2[o").append(i).append(']');
+        }
+
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-hide_banner", "-loglevel", "error", "-y",
+                // Seeking before -i jumps to the nearest keyframe with a range request.
+                "-ss", String.format(Locale.ROOT, "%.3f", offset),
+                "-i", url,
+                "-filter_complex", filter.toString()));
+        for (int i = 0; i < widths.size(); i++) {
+            command.addAll(List.of("-map", "[o" + i + "]", "-frames:v", "1", "-q:v", "3",
+                    dir.resolve(widths.get(i) + ".jpg").toString()));
+        }
+        ExternalProcess.run(command, dir.resolve("ffmpeg.log"), timeoutSeconds, TimeUnit.SECONDS);
+
+        for (Integer width : widths) {
+            minioService.uploadLocalFile("thumbnails/" + name + "/" + width + ".jpg",
+                    dir.resolve(width + ".jpg"), "image/jpeg");
+        }
+        int chosen = widths.contains(defaultThumbnailWidth) ? defaultThumbnailWidth : widths.get(widths.size() - 1);
+        return "/api/videos/thumbnails/" + name + "/" + chosen + ".jpg";
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return value == null ? null : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@code thumbnailUrl} is an API path of the default-size poster.
+     */
+    public record MediaInfo(Integer durationSeconds, String thumbnailUrl) {
+    }
+}
@@ -1,28 +1,60 @@
 package com.example.video.service;
 
+import com.example.video.config.MinioPartClient;
 import io.minio.BucketExistsArgs;
 import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
 import io.minio.StatObjectArgs;
 import io.minio.StatObjectResponse;
+import io.minio.http.Method;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class MinioService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MinioService.class);
+
     @Autowired
     private MinioClient minioClient;
 
+    @Autowired
+    @Qualifier("presignMinioClient")
+    private MinioClient presignMinioClient;
+
+    @Autowired
+    private MinioPartClient minioPartClient;
+
     @Value("${minio.bucket-name}")
     private String bucketName;
 
+    @Value("${minio.upload.part-size:8388608}")
+    private int partSize;
+
+    @Value("${minio.upload.parallelism:4}")
+    private int parallelism;
+
     private final Object bucketLock = new Object();
     private volatile boolean bucketReady;
 
@@ -41,6 +73,148 @@ public class MinioService {
         }
     }
 
+    public void uploadLocalFile(String objectName, Path file, String contentType) {
+        try (InputStream in = Files.newInputStream(file)) {
+            ensureBucketExists();
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(in, Files.size(file), -1)
+                            .contentType(contentType)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+    }
+
+    /**
+     * Uploads a stream of unknown length without spooling it, returning the number of bytes
+     * stored. The stream is cut into {@code part-size} parts that are uploaded while the next one
+     * is read, with up to {@code parallelism} parts in flight. A stream shorter than one part is
+     * stored with a single put. Reading more than {@code maxBytes} aborts the upload, as does any
+     * error, so no orphaned parts are left behind.
+     */
+    public long uploadStream(String objectName, InputStream in, String contentType, long maxBytes) {
+        // S3 rejects parts smaller than 5 MiB except the last one.
+        int size = Math.max(partSize, 5 * 1024 * 1024);
+        byte[] first = new byte[size];
+        int read;
+        try {
+            ensureBucketExists();
+            read = in.readNBytes(first, 0, size);
+            if (read == 0) {
+                throw new RuntimeException("Video file is required");
+            }
+            if (read > maxBytes) {
+                throw new RuntimeException("Video file exceeds the allowed upload size");
+            }
+            if (read < size) {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .stream(new ByteArrayInputStream(first, 0, read), read, -1)
+                                .contentType(contentType)
+                                .build());
+                return read;
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+
+        String uploadId = minioPartClient.createUpload(bucketName, objectName, contentType);
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        BlockingQueue<byte[]> free = new LinkedBlockingQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int allocated = 1;
+        long total = 0;
+        byte[] buffer = first;
+        try {
+            while (read > 0) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new RuntimeException("Video file exceeds the allowed upload size");
+                }
+                byte[] data = buffer;
+                parts.add(minioPartClient.uploadPart(bucketName, objectName, uploadId, parts.size() + 1, data, read)
+                        .whenComplete((part, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                            free.add(data);
+                        }));
+
+                // One buffer is being filled while up to `parallelism` others are uploading.
+                buffer = free.poll();
+                if (buffer == null && allocated <= parallelism) {
+                    buffer = new byte[size];
+                    allocated++;
+                } else if (buffer == null) {
+                    buffer = free.take();
+                }
+                if (failure.get() != null) {
+                    throw new RuntimeException("Error uploading part to MinIO", failure.get());
+                }
+                read = in.readNBytes(buffer, 0, size);
+            }
+            minioPartClient.complete(bucketName, objectName, uploadId,
+                    parts.stream().map(CompletableFuture::join).toArray(Part[]::new));
+            return total;
+        } catch (Exception e) {
+            abortQuietly(objectName, uploadId, parts);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw e instanceof RuntimeException runtime ? runtime : new RuntimeException("Error uploading file to MinIO", e);
+        }
+    }
+
+    public String startMultipartUpload(String objectName, String contentType) {
+        try {
+            ensureBucketExists();
+        } catch (Exception e) {
+            throw new RuntimeException("Error starting multipart upload to MinIO", e);
+        }
+        return minioPartClient.createUpload(bucketName, objectName, contentType);
+    }
+
+    /**
+     * Uploads one part of a multipart upload and returns its etag. Re-uploading a part number
+     * replaces the earlier part.
+     */
+    public String uploadPart(String objectName, String uploadId, int partNumber, byte[] data, int length) {
+        try {
+            return minioPartClient.uploadPart(bucketName, objectName, uploadId, partNumber, data, length).join().etag();
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading part to MinIO", e);
+        }
+    }
+
+    public List<Part> listParts(String objectName, String uploadId) {
+        return minioPartClient.listParts(bucketName, objectName, uploadId);
+    }
+
+    public void completeMultipartUpload(String objectName, String uploadId, Part[] parts) {
+        minioPartClient.complete(bucketName, objectName, uploadId, parts);
+    }
+
+    public void abortMultipartUpload(String objectName, String uploadId) {
+        minioPartClient.abort(bucketName, objectName, uploadId);
+    }
+
+    private void abortQuietly(String objectName, String uploadId, List<CompletableFuture<Part>> parts) {
+        // Parts still in flight would otherwise land after the abort and linger.
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+        try {
+            minioPartClient.abort(bucketName, objectName, uploadId);
+        } catch (RuntimeException e) {
+            logger.warn("Error aborting multipart upload {} of {}: {}", uploadId, objectName, e.getMessage());
+        }
+    }
+
     public InputStream getFile(String objectName) {
         return getFile(objectName, 0, -1);
     }
@@ -61,6 +235,18 @@ public class MinioService {
         }
     }
 
+    public void removeObject(String objectName) {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error removing file from MinIO", e);
+        }
+    }
+
     public StoredObjectInfo statObject(String objectName) {
         try {
             ensureBucketExists();
@@ -72,12 +258,49 @@ public class MinioService {
             return new StoredObjectInfo(
                     response.size(),
                     response.contentType(),
-                    response.object());
+                    response.object(),
+                    response.etag(),
+                    response.lastModified() != null ? response.lastModified().toInstant().toEpochMilli() : 0L);
         } catch (Exception e) {
             throw new RuntimeException("Error fetching file metadata from MinIO", e);
         }
     }
 
+    /**
+     * Presigned GET URL on the public endpoint, valid for {@code expirySeconds}. Signing is local.
+     */
+    public String presignGetUrl(String objectName, int expirySeconds) {
+        try {
+            return presignMinioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .expiry(expirySeconds)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error presigning MinIO object URL", e);
+        }
+    }
+
+    /**
+     * Presigned GET URL on the internal endpoint, for local tools (ffprobe/ffmpeg) that read an
+     * object over HTTP and fetch only the byte ranges they seek to.
+     */
+    public String presignInternalGetUrl(String objectName, int expirySeconds) {
+        try {
+            return minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .expiry(expirySeconds)
+                            .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Error presigning MinIO object URL", e);
+        }
+    }
+
     private void ensureBucketExists() throws Exception {
         if (bucketReady) {
             return;
@@ -96,6 +319,6 @@ public class MinioService {
         }
     }
 
-    public record StoredObjectInfo(long size, String contentType, String objectName) {
+    public record StoredObjectInfo(long size, String contentType, String objectName, String etag, long lastModified) {
     }
 }
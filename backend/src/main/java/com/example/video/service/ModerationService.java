@@ -47,6 +47,9 @@ public class ModerationService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
     public Map<String, Long> getQueueStats() {
         Map<String, Long> stats = new HashMap<>();
         stats.put("pending", queueRepository.countByStatus("pending"));
@@ -146,6 +149,7 @@ public class ModerationService {
         Video video = queue.getVideo();
         video.setStatus(VideoStatus.banned);
         videoRepository.save(video);
+        videoMetadataCache.invalidate(video.getId());
 
         // Auto-resolve related open reports
         List<Report> openReports = reportRepository.findByVideoId(video.getId())
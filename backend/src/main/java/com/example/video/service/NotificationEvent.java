@@ -0,0 +1,19 @@
+package com.example.video.service;
+
+import com.example.video.model.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A notification to create, published inside the transaction of the action that caused it and
+ * written by {@link NotificationFanOut} once that transaction has committed. Carries ids only;
+ * videoId and commentId may be null.
+ */
+public record NotificationEvent(UUID actorId,
+                                UUID recipientId,
+                                UUID videoId,
+                                UUID commentId,
+                                NotificationType type,
+                                LocalDateTime createdAt) {
+}
@@ -0,0 +1,165 @@
+package com.example.video.service;
+
+import com.example.video.model.NotificationType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue for notifications.
+ *
+ * Likes, comments and follows only publish a {@link NotificationEvent}; it is queued once their
+ * transaction commits (and dropped if it rolls back), so they neither wait for nor roll back with
+ * the notification insert. A scheduled flush writes the queue as JDBC batches of
+ * INSERT ... SELECT: the actor's username for the message is joined in by the insert itself, and
+ * rows whose actor or recipient is gone are skipped, as are references to a video or comment
+ * deleted in the meantime, so no entity is loaded. The queue is bounded by {@code max-pending};
+ * beyond it, and when a flush fails with a full queue, notifications are dropped and counted
+ * rather than holding up the actions behind them.
+ */
+@Service
+public class NotificationFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationFanOut.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO notifications (id, recipient_id, actor_id, video_id, comment_id, type, message, is_read, created_at)
+            SELECT ?, r.id, a.id,
+                   (SELECT v.id FROM videos v WHERE v.id = ?),
+                   (SELECT c.id FROM comments c WHERE c.id = ?),
+                   ?, a.username || ?, FALSE, ?
+            FROM users a
+            JOIN users r ON r.id = ?
+            WHERE a.id = ?
+            """;
+
+    @Value("${notifications.fan-out.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.fan-out.max-pending:100000}")
+    private int maxPending;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentLinkedQueue<NotificationEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LongAdder queuedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final Histogram flushLatencyMs = new Histogram(1, 5, 10, 25, 50, 100, 250, 500, 1_000);
+
+    /**
+     * Runs after the publishing transaction commits, or right away when there is none.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        if (offer(event)) {
+            queuedEvents.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.fan-out.flush-interval-ms:500}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int remaining = pendingCount.get();
+        flush();
+        logger.info("Flushed {} queued notifications on shutdown", remaining);
+    }
+
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<NotificationEvent> drained = new ArrayList<>(Math.min(batchSize, pendingCount.get()));
+            NotificationEvent event;
+            while (drained.size() < batchSize && (event = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                drained.add(event);
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> batch = new ArrayList<>(drained.size());
+            for (NotificationEvent queued : drained) {
+                batch.add(new Object[]{
+                        UUID.randomUUID(),
+                        queued.videoId(),
+                        queued.commentId(),
+                        queued.type().name(),
+                        messageSuffix(queued.type()),
+                        Timestamp.valueOf(queued.createdAt()),
+                        queued.recipientId(),
+                        queued.actorId()
+                });
+            }
+
+            long startedAt = System.nanoTime();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                flushedRows.add(batch.size());
+            } catch (Exception e) {
+                failedFlushes.increment();
+                logger.warn("Failed to insert {} notifications, will retry", drained.size(), e);
+                drained.forEach(this::offer);
+                return;
+            } finally {
+                flushLatencyMs.record((System.nanoTime() - startedAt) / 1_000_000);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pendingCount.get());
+        stats.put("maxPending", maxPending);
+        stats.put("queuedEvents", queuedEvents.sum());
+        stats.put("droppedEvents", droppedEvents.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("flushLatencyMs", flushLatencyMs.snapshot());
+        return stats;
+    }
+
+    private boolean offer(NotificationEvent event) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            droppedEvents.increment();
+            return false;
+        }
+        pending.add(event);
+        return true;
+    }
+
+    /**
+     * Message text after the actor's username.
+     */
+    private static String messageSuffix(NotificationType type) {
+        return switch (type) {
+            case like -> " liked your video";
+            case comment -> " commented on your video";
+            case follow -> " started following you";
+            case reply -> " replied to your comment";
+        };
+    }
+}
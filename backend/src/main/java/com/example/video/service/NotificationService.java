@@ -2,15 +2,14 @@ package com.example.video.service;
 
 import com.example.video.dto.NotificationResponse;
 import com.example.video.model.*;
-import com.example.video.repository.CommentRepository;
 import com.example.video.repository.NotificationRepository;
-import com.example.video.repository.UserRepository;
-import com.example.video.repository.VideoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,30 +21,22 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
 
-    @Autowired
-    private VideoRepository videoRepository;
-
-    @Autowired
-    private CommentRepository commentRepository;
+    // The create* methods only publish an event; NotificationFanOut writes it after commit.
 
-    @Transactional
     public void createFollowNotification(UUID actorId, UUID recipientId) {
         createNotification(actorId, recipientId, null, null, NotificationType.follow);
     }
 
-    @Transactional
     public void createLikeNotification(UUID actorId, UUID recipientId, UUID videoId) {
         createNotification(actorId, recipientId, videoId, null, NotificationType.like);
     }
 
-    @Transactional
     public void createCommentNotification(UUID actorId, UUID recipientId, UUID videoId, UUID commentId) {
         createNotification(actorId, recipientId, videoId, commentId, NotificationType.comment);
     }
 
-    @Transactional
     public void createReplyNotification(UUID actorId, UUID recipientId, UUID videoId, UUID commentId) {
         createNotification(actorId, recipientId, videoId, commentId, NotificationType.reply);
     }
@@ -83,35 +74,8 @@ public class NotificationService {
             return;
         }
 
-        User actor = userRepository.findById(actorId).orElse(null);
-        User recipient = userRepository.findById(recipientId).orElse(null);
-        if (actor == null || recipient == null) {
-            return;
-        }
-
-        Notification notification = new Notification();
-        notification.setActor(actor);
-        notification.setRecipient(recipient);
-        notification.setType(type);
-        notification.setMessage(buildMessage(type, actor.getUsername()));
-
-        if (videoId != null) {
-            videoRepository.findById(videoId).ifPresent(notification::setVideo);
-        }
-        if (commentId != null) {
-            commentRepository.findById(commentId).ifPresent(notification::setComment);
-        }
-
-        notificationRepository.save(notification);
-    }
-
-    private String buildMessage(NotificationType type, String username) {
-        return switch (type) {
-            case like -> username + " liked your video";
-            case comment -> username + " commented on your video";
-            case follow -> username + " started following you";
-            case reply -> username + " replied to your comment";
-        };
+        eventPublisher.publishEvent(new NotificationEvent(
+                actorId, recipientId, videoId, commentId, type, LocalDateTime.now()));
     }
 
     private NotificationResponse toResponse(Notification notification) {
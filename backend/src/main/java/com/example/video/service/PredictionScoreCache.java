@@ -0,0 +1,164 @@
+package com.example.video.service;
+
+import com.example.video.model.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded TTL cache of (user numericId, candidate numericId) → predicted_watch_time.
+ *
+ * Entries live in size-bounded LRU segments. Invalidating a user does not walk the cache: it
+ * records a sequence number, and any entry stamped before it is treated as a miss. Stamps are
+ * taken before the model is called, so a prediction that races with an invalidation is never
+ * cached as fresh; callers invalidating inside a transaction must invalidate again after commit,
+ * since a prediction started in between still reads the old data.
+ */
+@Service
+public class PredictionScoreCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    @Value("${ai.predict.cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${ai.predict.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<UUID, Invalidation> invalidations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private Segment[] segments;
+
+    @PostConstruct
+    void init() {
+        segments = new Segment[SEGMENT_COUNT];
+        int perSegment = Math.max(maxEntries / SEGMENT_COUNT, 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public Lookup lookup(User user, Collection<Integer> candidateIds) {
+        long stamp = sequence.incrementAndGet();
+        if (user.getNumericId() == null) {
+            misses.add(candidateIds.size());
+            return new Lookup(Collections.emptyMap(), stamp);
+        }
+
+        long now = System.nanoTime();
+        long invalidatedAt = invalidatedAt(user.getId());
+        Map<Integer, Float> found = new HashMap<>();
+        for (Integer candidateId : candidateIds) {
+            Entry entry = segmentFor(user.getNumericId(), candidateId).get(key(user.getNumericId(), candidateId));
+            if (entry != null && entry.expiresAt - now > 0 && entry.stamp > invalidatedAt) {
+                found.put(candidateId, entry.score);
+            }
+        }
+        hits.add(found.size());
+        misses.add(candidateIds.size() - found.size());
+        return new Lookup(found, stamp);
+    }
+
+    public void put(User user, Map<Integer, Float> scores, long stamp) {
+        if (user.getNumericId() == null || stamp <= invalidatedAt(user.getId())) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+        scores.forEach((candidateId, score) -> segmentFor(user.getNumericId(), candidateId)
+                .put(key(user.getNumericId(), candidateId), new Entry(score, expiresAt, stamp)));
+    }
+
+    /**
+     * Drops every cached score for the user, e.g. after an interaction changed their profile buckets.
+     */
+    public void invalidateUser(UUID userId) {
+        if (userId != null) {
+            invalidations.put(userId, new Invalidation(sequence.incrementAndGet(), System.nanoTime()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("trackedInvalidations", invalidations.size());
+        return stats;
+    }
+
+    /**
+     * Forgets invalidation markers once every entry they could shadow has expired anyway.
+     */
+    @Scheduled(fixedDelayString = "${ai.predict.cache.cleanup-interval-ms:60000}")
+    public void pruneInvalidations() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(ttlSeconds * 2);
+        invalidations.values().removeIf(invalidation -> invalidation.at - cutoff < 0);
+    }
+
+    private long invalidatedAt(UUID userId) {
+        Invalidation invalidation = invalidations.get(userId);
+        return invalidation != null ? invalidation.sequence : 0L;
+    }
+
+    private Segment segmentFor(int userNumericId, int candidateId) {
+        return segments[Math.floorMod(userNumericId * 31 + candidateId, segments.length)];
+    }
+
+    private static long key(int userNumericId, int candidateId) {
+        return ((long) userNumericId << 32) | (candidateId & 0xffffffffL);
+    }
+
+    /**
+     * Cached scores for the requested candidates, plus the stamp to pass back to {@link #put}.
+     */
+    public record Lookup(Map<Integer, Float> scores, long stamp) {
+    }
+
+    private record Entry(float score, long expiresAt, long stamp) {
+    }
+
+    private record Invalidation(long sequence, long at) {
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Long, Entry> entries;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        private synchronized Entry get(long key) {
+            return entries.get(key);
+        }
+
+        private synchronized void put(long key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.video.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived presigned MinIO GET URLs per video, for serving streams by redirect.
+ *
+ * In redirect mode the stream endpoint answers with a 302 to the object on MinIO, so video bytes
+ * no longer pass through the backend. A URL is reused until {@code refresh-margin-seconds} before
+ * it expires, so clients always get at least that long to start (and keep ranging) the download.
+ * The cache is keyed by video and object name, and expired entries are pruned periodically.
+ */
+@Service
+public class PresignedUrlCache {
+
+    public enum Mode { PROXY, REDIRECT }
+
+    @Value("${video-stream.mode:proxy}")
+    private String mode;
+
+    @Value("${video-stream.presign.expiry-seconds:900}")
+    private int expirySeconds;
+
+    @Value("${video-stream.presign.refresh-margin-seconds:120}")
+    private int refreshMarginSeconds;
+
+    @Value("${video-stream.presign.embed-in-feed:false}")
+    private boolean embedInFeed;
+
+    @Autowired
+    private MinioService minioService;
+
+    private final Map<UUID, Entry> urls = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder signed = new LongAdder();
+
+    private Mode streamMode;
+
+    @PostConstruct
+    void init() {
+        streamMode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Mode getMode() {
+        return streamMode;
+    }
+
+    public boolean isRedirectEnabled() {
+        return getMode() == Mode.REDIRECT;
+    }
+
+    /**
+     * Whether feed items should carry the presigned URL instead of the /api/videos/stream path.
+     */
+    public boolean isEmbedInFeed() {
+        return isRedirectEnabled() && embedInFeed;
+    }
+
+    public String getUrl(UUID videoId, String objectName) {
+        long now = System.nanoTime();
+        Entry entry = urls.get(videoId);
+        if (entry != null && entry.objectName.equals(objectName) && entry.refreshAt - now > 0) {
+            hits.increment();
+            return entry.url;
+        }
+
+        // Racing signers each produce a valid URL; the last one written is reused.
+        String url = minioService.presignGetUrl(objectName, expirySeconds);
+        long usableFor = TimeUnit.SECONDS.toNanos(Math.max(expirySeconds - refreshMarginSeconds, 0));
+        urls.put(videoId, new Entry(url, objectName, now + usableFor));
+        signed.increment();
+        return url;
+    }
+
+    @Scheduled(fixedDelayString = "${video-stream.presign.cleanup-interval-ms:60000}")
+    public void pruneExpired() {
+        long now = System.nanoTime();
+        urls.values().removeIf(entry -> entry.refreshAt - now <= 0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", getMode().name().toLowerCase());
+        stats.put("embedInFeed", isEmbedInFeed());
+        stats.put("expirySeconds", expirySeconds);
+        stats.put("cachedUrls", urls.size());
+        stats.put("hits", hits.sum());
+        stats.put("signed", signed.sum());
+        return stats;
+    }
+
+    private record Entry(String url, String objectName, long refreshAt) {
+    }
+}
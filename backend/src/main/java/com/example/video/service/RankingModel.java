@@ -0,0 +1,22 @@
+package com.example.video.service;
+
+import com.example.video.dto.AiPredictionRequest;
+import com.example.video.dto.AiPredictionResponse;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Scores feed candidates with a predicted watch time.
+ *
+ * The implementation is picked with {@code ai.ranking.model}: {@code remote} (default) calls the
+ * AI server over HTTP, {@code local} scores in-process from an exported weights file.
+ */
+public interface RankingModel {
+
+    String getName();
+
+    CompletableFuture<AiPredictionResponse> predictAsync(AiPredictionRequest request);
+
+    Map<String, Object> getStats();
+}
@@ -6,21 +6,20 @@ import com.example.video.dto.AiPredictionResponse;
 import com.example.video.dto.VideoFeedItem;
 import com.example.video.model.*;
 import com.example.video.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,6 +28,9 @@ import java.util.stream.Stream;
  *
  * Path A (New User): account < 1 day OR watched < 20 videos → Random unwatched videos
  * Path B (Existing User): 60 candidates → AI /predict → sort by predicted_watch_time → select + shuffle
+ *
+ * The AI call is bounded by a latency budget and guarded by {@link AiCircuitBreaker}; when the
+ * budget expires or the breaker is open, candidates are ranked locally with {@link #calculateScore}.
  */
 @Service
 public class RecommendationService {
@@ -39,37 +41,47 @@ public class RecommendationService {
     private VideoRepository videoRepository;
 
     @Autowired
-    private VideoStatsRepository videoStatsRepository;
+    private FollowRepository followRepository;
 
     @Autowired
-    private LikeRepository likeRepository;
+    private VideoRepostRepository videoRepostRepository;
 
     @Autowired
-    private FollowRepository followRepository;
+    private VideoViewRepository videoViewRepository;
 
     @Autowired
-    private VideoTagRepository videoTagRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private VideoRepostRepository videoRepostRepository;
+    private CandidatePoolService candidatePoolService;
 
     @Autowired
-    private VideoViewRepository videoViewRepository;
+    private RankingModel rankingModel;
 
     @Autowired
-    private UserRepository userRepository;
+    private PredictionScoreCache predictionScoreCache;
 
-    @Value("${ai.server.url:http://ai-server:8000}")
-    private String aiServerUrl;
+    @Autowired
+    private AiCircuitBreaker aiCircuitBreaker;
 
-    private final RestTemplate restTemplate = createRestTemplate();
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VideoStatsCounterBuffer videoStatsCounterBuffer;
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
 
+    private static final UUID NO_VIEWER = new UUID(0L, 0L);
     private static final int CANDIDATE_POOL_SIZE = 60;
     private static final int MIN_FOLLOWED_VIDEOS = 2;
     private static final long NEW_USER_VIEW_THRESHOLD = 20;
     private static final long NEW_USER_DAYS_THRESHOLD = 1;
     private static final double REPOST_BASE_BOOST = 10.0;
     private static final double SELF_REPOST_BOOST = 5.0;
+    // View counts at which a user's active_degree bucket goes up
+    static final long[] ACTIVE_DEGREE_VIEW_BOUNDS = {10, 50, 200};
 
     // ==================== PUBLIC API ====================
 
@@ -125,10 +137,10 @@ public class RecommendationService {
             videoIds = videoRepository.findRandomUnwatchedVideoIds(currentUserId, size);
             // Fallback if not enough unwatched
             if (videoIds.size() < size) {
-                videoIds = videoRepository.findRandomActiveVideoIds(size);
+                videoIds = findRandomActiveVideoIds(size);
             }
         } else {
-            videoIds = videoRepository.findRandomActiveVideoIds(size);
+            videoIds = findRandomActiveVideoIds(size);
         }
 
         if (videoIds.isEmpty()) {
@@ -151,23 +163,35 @@ public class RecommendationService {
         UUID userId = user.getId();
 
         // Step 1: Get at least MIN_FOLLOWED_VIDEOS from followed users
-        List<UUID> followedVideoIds = videoRepository.findRandomFollowedVideoIds(userId, MIN_FOLLOWED_VIDEOS);
-
         // Step 2: Fill remaining slots to reach CANDIDATE_POOL_SIZE
-        int remainingSlots = CANDIDATE_POOL_SIZE - followedVideoIds.size();
-        Set<UUID> excludeIds = new HashSet<>(followedVideoIds);
-        if (excludeIds.isEmpty()) {
-            // Avoid empty IN clause
-            excludeIds.add(UUID.fromString("00000000-0000-0000-0000-000000000000"));
+        // Both steps sample the in-memory candidate pool; the ORDER BY RANDOM() queries are only
+        // used until the pool has been loaded for the first time.
+        List<UUID> followedVideoIds;
+        List<UUID> otherVideoIds;
+        if (candidatePoolService.isReady()) {
+            followedVideoIds = candidatePoolService.sampleFollowed(userId, MIN_FOLLOWED_VIDEOS);
+            otherVideoIds = candidatePoolService.sampleActive(
+                    CANDIDATE_POOL_SIZE - followedVideoIds.size(), new HashSet<>(followedVideoIds));
+        } else {
+            followedVideoIds = videoRepository.findRandomFollowedVideoIds(userId, MIN_FOLLOWED_VIDEOS);
+            int remainingSlots = CANDIDATE_POOL_SIZE - followedVideoIds.size();
+            Set<UUID> excludeIds = new HashSet<>(followedVideoIds);
+            if (excludeIds.isEmpty()) {
+                // Avoid empty IN clause
+                excludeIds.add(UUID.fromString("00000000-0000-0000-0000-000000000000"));
+            }
+            otherVideoIds = videoRepository.findRandomVideoIdsExcluding(excludeIds, remainingSlots);
         }
-        List<UUID> otherVideoIds = videoRepository.findRandomVideoIdsExcluding(excludeIds, remainingSlots);
 
         // Step 3: Load all candidate videos
         Set<UUID> allCandidateIds = new LinkedHashSet<>();
         allCandidateIds.addAll(followedVideoIds);
         allCandidateIds.addAll(otherVideoIds);
 
-        List<Video> allCandidates = videoRepository.findAllWithUserByIdIn(allCandidateIds);
+        // The pool can lag behind moderation by one refresh interval, so drop videos hidden since then.
+        List<Video> allCandidates = videoRepository.findAllWithUserByIdIn(allCandidateIds).stream()
+                .filter(v -> v.getStatus() == VideoStatus.active)
+                .collect(Collectors.toList());
         if (allCandidates.isEmpty()) {
             return getRandomFeed(userId, size);
         }
@@ -184,13 +208,11 @@ public class RecommendationService {
         // Step 4: Build AI request and call predict
         List<Video> aiSortedVideos;
         try {
-            AiPredictionRequest request = buildAiRequest(user, candidatesForAi);
-            AiPredictionResponse response = callAiServer(request);
+            AiPredictionResponse response = predictWatchTimes(user, candidatesForAi);
             aiSortedVideos = applySorting(candidatesForAi, response);
         } catch (Exception e) {
-            System.err.println("AI prediction failed, falling back to random: " + e.getMessage());
-            aiSortedVideos = candidatesForAi;
-            Collections.shuffle(aiSortedVideos);
+            logger.debug("AI prediction unavailable for user {}, ranking locally: {}", userId, e.getMessage());
+            aiSortedVideos = rankLocally(candidatesForAi, userId);
         }
 
         // Step 5: Select top (size - 1) + 1 near bottom + followed videos
@@ -208,21 +230,45 @@ public class RecommendationService {
 
     // ==================== AI REQUEST/RESPONSE ====================
 
-    private AiPredictionRequest buildAiRequest(User user, List<Video> candidates) {
-        AiPredictionRequest request = new AiPredictionRequest();
-
-        // Build user profile
-        AiPredictionRequest.UserProfile profile = buildUserProfile(user);
-        request.setUserProfile(profile);
-
-        // Build video candidates
+    /**
+     * Predicted watch time per candidate. Scores cached for this user are reused; only the
+     * misses are sent to the model (and the user profile is only built when there are misses).
+     */
+    private AiPredictionResponse predictWatchTimes(User user, List<Video> candidates) {
         List<VideoCandidate> videoCandidates = candidates.stream()
                 .filter(v -> v.getNumericId() != null)
                 .map(this::buildVideoCandidate)
                 .collect(Collectors.toList());
-        request.setVideoCandidates(videoCandidates);
 
-        return request;
+        PredictionScoreCache.Lookup cached = predictionScoreCache.lookup(user,
+                videoCandidates.stream().map(VideoCandidate::getCandidateId).collect(Collectors.toList()));
+        List<VideoCandidate> misses = videoCandidates.stream()
+                .filter(candidate -> !cached.scores().containsKey(candidate.getCandidateId()))
+                .collect(Collectors.toList());
+
+        List<AiPredictionResponse.Prediction> predictions = new ArrayList<>();
+        cached.scores().forEach((candidateId, score) -> {
+            AiPredictionResponse.Prediction prediction = new AiPredictionResponse.Prediction();
+            prediction.setCandidateId(candidateId);
+            prediction.setPredictedWatchTime(score);
+            predictions.add(prediction);
+        });
+
+        if (!misses.isEmpty()) {
+            AiPredictionRequest request = new AiPredictionRequest();
+            request.setUserProfile(buildUserProfile(user));
+            request.setVideoCandidates(misses);
+
+            AiPredictionResponse response = callAiServer(request, user, cached.stamp());
+            if (response != null && response.getPredictions() != null) {
+                predictions.addAll(response.getPredictions());
+            }
+        }
+
+        AiPredictionResponse merged = new AiPredictionResponse();
+        merged.setStatus("success");
+        merged.setPredictions(predictions);
+        return merged;
     }
 
     private AiPredictionRequest.UserProfile buildUserProfile(User user) {
@@ -233,10 +279,11 @@ public class RecommendationService {
 
         // active_degree: based on total views
         long totalViews = videoViewRepository.countByUserId(user.getId());
-        if (totalViews < 10) profile.setActiveDegree(0);
-        else if (totalViews < 50) profile.setActiveDegree(1);
-        else if (totalViews < 200) profile.setActiveDegree(2);
-        else profile.setActiveDegree(3);
+        int activeDegree = 0;
+        while (activeDegree < ACTIVE_DEGREE_VIEW_BOUNDS.length && totalViews >= ACTIVE_DEGREE_VIEW_BOUNDS[activeDegree]) {
+            activeDegree++;
+        }
+        profile.setActiveDegree(activeDegree);
 
         // is_live_streamer: not supported yet
         profile.setIsLiveStreamer(0);
@@ -282,20 +329,48 @@ public class RecommendationService {
         return candidate;
     }
 
-    private AiPredictionResponse callAiServer(AiPredictionRequest request) {
-        String url = aiServerUrl + "/predict";
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<AiPredictionRequest> entity = new HttpEntity<>(request, headers);
+    /**
+     * Waits at most the latency budget for the prediction. A response that arrives after the budget
+     * is still cached, so the next request for this user is served from the cache.
+     */
+    private AiPredictionResponse callAiServer(AiPredictionRequest request, User user, long cacheStamp) {
+        if (!aiCircuitBreaker.tryAcquire()) {
+            throw new RuntimeException("AI circuit breaker is open");
+        }
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<AiPredictionResponse> future = rankingModel.predictAsync(request);
+        future.whenComplete((response, error) -> {
+            aiCircuitBreaker.onComplete(System.nanoTime() - startedAt, error != null);
+            if (response != null && response.getPredictions() != null) {
+                Map<Integer, Float> fresh = new HashMap<>();
+                response.getPredictions().forEach(prediction ->
+                        fresh.putIfAbsent(prediction.getCandidateId(), prediction.getPredictedWatchTime()));
+                predictionScoreCache.put(user, fresh, cacheStamp);
+            }
+        });
 
-        return restTemplate.postForObject(url, entity, AiPredictionResponse.class);
+        try {
+            return future.get(aiCircuitBreaker.getLatencyBudgetMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for AI prediction", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("AI prediction failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("AI prediction exceeded latency budget", e);
+        }
     }
 
-    private RestTemplate createRestTemplate() {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(2000);
-        requestFactory.setReadTimeout(4000);
-        return new RestTemplate(requestFactory);
+    /**
+     * Fallback ranking when the AI server is slow or unavailable: engagement/freshness score DESC.
+     */
+    private List<Video> rankLocally(List<Video> candidates, UUID userId) {
+        FeedContext context = buildFeedContext(candidates, userId);
+        Map<UUID, Double> scores = new HashMap<>();
+        candidates.forEach(video -> scores.put(video.getId(), calculateScore(video, context)));
+        candidates.sort((a, b) -> Double.compare(scores.get(b.getId()), scores.get(a.getId())));
+        return candidates;
     }
 
     private List<Video> applySorting(List<Video> candidates, AiPredictionResponse response) {
@@ -383,6 +458,45 @@ public class RecommendationService {
         return likes * 3.0 + comments * 2.0 + reposts * 4.0 + views * 0.1 + freshness * 0.5;
     }
 
+    private List<UUID> findRandomActiveVideoIds(int limit) {
+        if (candidatePoolService.isReady()) {
+            return candidatePoolService.sampleActive(limit, Collections.emptySet());
+        }
+        return videoRepository.findRandomActiveVideoIds(limit);
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    /**
+     * Stored counter plus the increments still waiting in the write-behind buffer.
+     */
+    private long withPending(Long stored, UUID videoId, VideoStatsCounterBuffer.Metric metric) {
+        return (stored != null ? stored : 0L) + videoStatsCounterBuffer.getPending(videoId, metric);
+    }
+
+    /**
+     * Hashtag names from the JSON array built by the hydration query, sorted and de-duplicated.
+     */
+    private List<String> parseHashtags(String json) {
+        if (json == null || json.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            TreeSet<String> names = new TreeSet<>();
+            for (String name : objectMapper.readValue(json, String[].class)) {
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            return new ArrayList<>(names);
+        } catch (Exception e) {
+            logger.warn("Could not parse hashtags {}", json, e);
+            return Collections.emptyList();
+        }
+    }
+
     private int calculateRange(long value, long[] thresholds) {
         for (int i = thresholds.length - 1; i >= 0; i--) {
             if (value >= thresholds[i]) return i;
@@ -457,40 +571,48 @@ public class RecommendationService {
         LinkedHashSet<UUID> videoIds = videos.stream()
                 .map(Video::getId)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
-        LinkedHashSet<UUID> ownerIds = videos.stream()
-                .map(Video::getUser)
-                .filter(Objects::nonNull)
-                .map(User::getId)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        Map<UUID, VideoStats> statsByVideoId = videoStatsRepository.findByVideoIdIn(videoIds).stream()
-                .collect(Collectors.toMap(VideoStats::getVideoId, value -> value));
-        Map<UUID, List<String>> hashtagsByVideoId = videoTagRepository.findByVideoIdInAndTagCategory(videoIds, "hashtag")
-                .stream()
-                .filter(videoTag -> videoTag.getTag() != null)
-                .collect(Collectors.groupingBy(
-                        VideoTag::getVideoId,
-                        Collectors.collectingAndThen(
-                                Collectors.mapping(videoTag -> videoTag.getTag().getName(),
-                                        Collectors.toCollection(TreeSet::new)),
-                                ArrayList::new
-                        )));
-
-        Set<UUID> likedVideoIds = Collections.emptySet();
-        Set<UUID> followedUserIds = Collections.emptySet();
-        Set<UUID> currentUserRepostedVideoIds = Collections.emptySet();
-        if (currentUserId != null) {
-            likedVideoIds = new HashSet<>(likeRepository.findVideoIdsByUserIdAndVideoIdIn(currentUserId, videoIds));
-            followedUserIds = new HashSet<>(followRepository.findFollowingIdsByFollowerIdAndFollowingIdIn(currentUserId, ownerIds));
-            currentUserRepostedVideoIds = new HashSet<>(videoRepostRepository.findVideoIdsByUserIdAndVideoIdIn(currentUserId, videoIds));
+        // Stats, hashtags, viewer flags and repost counts in a single query (one row per video).
+        List<Object[]> rows = videoRepository.findFeedContextRows(
+                videoIds, currentUserId != null ? currentUserId : NO_VIEWER);
+
+        Map<UUID, VideoStats> statsByVideoId = new HashMap<>();
+        Map<UUID, List<String>> hashtagsByVideoId = new HashMap<>();
+        Set<UUID> likedVideoIds = new HashSet<>();
+        Set<UUID> followedUserIds = new HashSet<>();
+        Set<UUID> currentUserRepostedVideoIds = new HashSet<>();
+        Map<UUID, Long> repostCountByVideoId = new HashMap<>();
+        for (Object[] row : rows) {
+            UUID videoId = (UUID) row[0];
+            UUID ownerId = (UUID) row[1];
+            if (Boolean.TRUE.equals(row[2])) {
+                VideoStats stats = new VideoStats();
+                stats.setVideoId(videoId);
+                stats.setViewCount(withPending(toLong(row[3]), videoId, VideoStatsCounterBuffer.Metric.VIEW));
+                stats.setLikeCount(toLong(row[4]));
+                stats.setCommentCount(Math.max(0, withPending(toLong(row[5]), videoId, VideoStatsCounterBuffer.Metric.COMMENT)));
+                stats.setShareCount(withPending(toLong(row[6]), videoId, VideoStatsCounterBuffer.Metric.SHARE));
+                statsByVideoId.put(videoId, stats);
+            }
+            List<String> hashtags = parseHashtags((String) row[7]);
+            if (!hashtags.isEmpty()) {
+                hashtagsByVideoId.put(videoId, hashtags);
+            }
+            if (Boolean.TRUE.equals(row[8])) {
+                likedVideoIds.add(videoId);
+            }
+            if (Boolean.TRUE.equals(row[9]) && ownerId != null) {
+                followedUserIds.add(ownerId);
+            }
+            if (Boolean.TRUE.equals(row[10])) {
+                currentUserRepostedVideoIds.add(videoId);
+            }
+            long repostCount = row[11] != null ? ((Number) row[11]).longValue() : 0L;
+            if (repostCount > 0) {
+                repostCountByVideoId.put(videoId, repostCount);
+            }
         }
 
-        Map<UUID, Long> repostCountByVideoId = videoRepostRepository.countByVideoIds(videoIds).stream()
-                .collect(Collectors.toMap(
-                        row -> (UUID) row[0],
-                        row -> ((Number) row[1]).longValue()
-                ));
-
         return new FeedContext(
                 statsByVideoId,
                 hashtagsByVideoId,
@@ -577,7 +699,10 @@ public class RecommendationService {
         item.setEntryType(candidate.isRepost() ? "repost" : "original");
         item.setTitle(video.getTitle());
         item.setDescription(video.getDescription());
-        item.setVideoUrl(video.getStreamUrl());
+        item.setVideoUrl(presignedUrlCache.isEmbedInFeed() && video.getHlsPlaylistUrl() == null
+                && !video.getVideoUrl().startsWith("http")
+                ? presignedUrlCache.getUrl(video.getId(), video.getVideoUrl())
+                : video.getStreamUrl());
         item.setThumbnailUrl(video.getThumbnailUrl());
         item.setDurationSeconds(video.getDurationSeconds());
         item.setCreatedAt(video.getCreatedAt().toString());
@@ -1,14 +1,26 @@
 package com.example.video.service;
 
+import com.example.video.dto.CommentPage;
 import com.example.video.dto.CommentRequest;
 import com.example.video.dto.CommentResponse;
 import com.example.video.model.*;
 import com.example.video.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,9 +39,6 @@ public class SocialService {
     @Autowired
     private VideoRepository videoRepository;
 
-    @Autowired
-    private VideoStatsRepository videoStatsRepository;
-
     @Autowired
     private UserRepository userRepository;
 
@@ -45,6 +54,24 @@ public class SocialService {
     @Autowired
     private InteractionLoggerService interactionLoggerService;
 
+    @Autowired
+    private PredictionScoreCache predictionScoreCache;
+
+    @Autowired
+    private VideoStatsCounterBuffer videoStatsCounterBuffer;
+
+    @Autowired
+    private CommentPageCache commentPageCache;
+
+    @Value("${comments.page-size:20}")
+    private int commentPageSize;
+
+    @Value("${comments.max-page-size:100}")
+    private int commentMaxPageSize;
+
+    @Value("${comments.reply-preview-count:3}")
+    private int replyPreviewCount;
+
     // ==================== LIKE ====================
 
     @Transactional
@@ -58,9 +85,7 @@ public class SocialService {
             like.setVideoId(videoId);
             likeRepository.save(like);
 
-            videoRepository.findById(videoId)
-                    .map(Video::getUser)
-                    .map(User::getId)
+            videoRepository.findOwnerIdById(videoId)
                     .ifPresent(ownerId -> notificationService.createLikeNotification(userId, ownerId, videoId));
             return true; // Liked
         }
@@ -76,12 +101,13 @@ public class SocialService {
     public CommentResponse addComment(UUID userId, CommentRequest request) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        Video video = videoRepository.findById(request.getVideoId())
+        UUID videoId = request.getVideoId();
+        UUID ownerId = videoRepository.findOwnerIdById(videoId)
                 .orElseThrow(() -> new RuntimeException("Video not found"));
 
         Comment comment = new Comment();
         comment.setUser(user);
-        comment.setVideo(video);
+        comment.setVideo(videoRepository.getReferenceById(videoId));
         comment.setContent(request.getContent());
 
         if (request.getParentId() != null) {
@@ -92,31 +118,144 @@ public class SocialService {
 
         comment.setCreatedAt(java.time.LocalDateTime.now());
         Comment saved = commentRepository.save(comment);
-        updateCommentCount(request.getVideoId(), 1);
+        updateCommentCount(videoId, 1);
+        invalidateCommentPages(videoId);
 
-        notificationService.createCommentNotification(userId, video.getUser().getId(), video.getId(), saved.getId());
+        notificationService.createCommentNotification(userId, ownerId, videoId, saved.getId());
         if (saved.getParent() != null) {
             notificationService.createReplyNotification(
                     userId,
                     saved.getParent().getUser().getId(),
-                    video.getId(),
+                    videoId,
                     saved.getId());
         }
 
         return convertToResponse(saved);
     }
 
+    /**
+     * Every comment of the video, for clients that predate paging. Nested lists are top-level
+     * comments newest first with their reply trees oldest first.
+     */
     public List<CommentResponse> getComments(UUID videoId, boolean nested) {
-        if (nested) {
-            List<Comment> topLevel = commentRepository.findTopLevelComments(videoId);
-            return topLevel.stream()
-                    .map(this::convertToResponseWithReplies)
-                    .collect(Collectors.toList());
-        } else {
-            return commentRepository.findByVideoIdOrderByCreatedAtDesc(videoId).stream()
+        // One query for the whole video, authors included; the tree is built in memory.
+        List<Comment> comments = commentRepository.findByVideoIdWithUser(videoId);
+        if (!nested) {
+            return comments.stream()
                     .map(this::convertToResponse)
                     .collect(Collectors.toList());
         }
+
+        Map<UUID, CommentResponse> responses = new HashMap<>();
+        for (Comment comment : comments) {
+            responses.put(comment.getId(), convertToResponse(comment));
+        }
+        // Newest first at the top level, oldest first within a thread
+        List<CommentResponse> topLevel = new ArrayList<>();
+        for (Comment comment : comments) {
+            CommentResponse response = responses.get(comment.getId());
+            CommentResponse parent = response.getParentId() != null ? responses.get(response.getParentId()) : null;
+            if (parent == null) {
+                topLevel.add(response);
+            } else {
+                if (parent.getReplies() == null) {
+                    parent.setReplies(new ArrayList<>());
+                }
+                parent.getReplies().add(0, response);
+            }
+        }
+        return topLevel;
+    }
+
+    /**
+     * Page of a video's comments, newest first, after {@code cursor} (null for the first page);
+     * pages are keyed on (created_at, id) so each costs the same however deep it is.
+     *
+     * Nested pages hold top-level comments only. Each carries its thread's reply count and,
+     * flattened in chronological order, the first {@code comments.reply-preview-count} of its
+     * replies at any depth; {@link #getReplies} has the rest. The default-size first nested page,
+     * the one every comment sheet opens with, is served from {@link CommentPageCache}. Flat pages
+     * hold every comment, replies included.
+     */
+    public CommentPage getCommentPage(UUID videoId, boolean nested, String cursor, Integer limit) {
+        int size = Math.min(Math.max(limit != null ? limit : commentPageSize, 1), commentMaxPageSize);
+        CommentCursor after = cursor == null || cursor.isBlank() ? null : CommentCursor.decode(cursor);
+        if (!nested) {
+            List<Comment> comments = after == null
+                    ? commentRepository.findPage(videoId, PageRequest.of(0, size))
+                    : commentRepository.findPageAfter(videoId, after.createdAt(), after.id(), PageRequest.of(0, size));
+            return toPage(comments, comments.stream().map(this::convertToResponse).collect(Collectors.toList()), size);
+        }
+        if (after == null && size == commentPageSize) {
+            return commentPageCache.get(videoId, id -> loadThreadPage(id, null, size));
+        }
+        return loadThreadPage(videoId, after, size);
+    }
+
+    private CommentPage loadThreadPage(UUID videoId, CommentCursor after, int size) {
+        List<Comment> roots = after == null
+                ? commentRepository.findTopLevelPage(videoId, PageRequest.of(0, size))
+                : commentRepository.findTopLevelPageAfter(videoId, after.createdAt(), after.id(), PageRequest.of(0, size));
+
+        List<CommentResponse> responses = roots.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        attachReplies(responses, replyPreviewCount);
+        return toPage(roots, responses, size);
+    }
+
+    private CommentPage toPage(List<Comment> comments, List<CommentResponse> responses, int size) {
+        CommentPage page = new CommentPage();
+        page.setComments(responses);
+        if (comments.size() == size) {
+            Comment last = comments.get(comments.size() - 1);
+            page.setNextCursor(new CommentCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return page;
+    }
+
+    /**
+     * Every reply under a comment, at any depth, in chronological order.
+     */
+    public List<CommentResponse> getReplies(UUID commentId) {
+        CommentResponse root = new CommentResponse();
+        root.setId(commentId);
+        attachReplies(List.of(root), Integer.MAX_VALUE);
+        return root.getReplies() != null ? root.getReplies() : List.of();
+    }
+
+    private void attachReplies(List<CommentResponse> roots, int previewCount) {
+        if (roots.isEmpty()) {
+            return;
+        }
+        Map<UUID, CommentResponse> byId = new HashMap<>();
+        for (CommentResponse root : roots) {
+            root.setReplyCount(0);
+            byId.put(root.getId(), root);
+        }
+
+        Map<UUID, UUID> rootOfReply = new HashMap<>();
+        for (Object[] row : commentRepository.findThreadReplies(byId.keySet(), previewCount)) {
+            UUID replyId = (UUID) row[0];
+            UUID rootId = (UUID) row[1];
+            byId.get(rootId).setReplyCount(((Number) row[3]).intValue());
+            if (((Number) row[2]).longValue() <= previewCount) {
+                rootOfReply.put(replyId, rootId);
+            }
+        }
+        if (rootOfReply.isEmpty()) {
+            return;
+        }
+
+        List<Comment> replies = new ArrayList<>(commentRepository.findByIdInWithUser(rootOfReply.keySet()));
+        replies.sort(Comparator.comparing(Comment::getCreatedAt).thenComparing(Comment::getId));
+        for (Comment reply : replies) {
+            CommentResponse root = byId.get(rootOfReply.get(reply.getId()));
+            if (root.getReplies() == null) {
+                root.setReplies(new ArrayList<>());
+            }
+            root.getReplies().add(convertToResponse(reply));
+        }
     }
 
     @Transactional
@@ -129,21 +268,65 @@ public class SocialService {
         }
 
         UUID videoId = comment.getVideo().getId();
-        int deletedCount = countCommentTree(comment.getId());
+        int deletedCount = (int) commentRepository.countThread(comment.getId());
         commentRepository.delete(comment);
         updateCommentCount(videoId, -deletedCount);
+        invalidateCommentPages(videoId);
+    }
+
+    /**
+     * Drops the cached first page now, so loads already running are not cached, and again after
+     * commit, so a page read before the change became visible does not outlive it.
+     */
+    private void invalidateCommentPages(UUID videoId) {
+        commentPageCache.invalidate(videoId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    commentPageCache.invalidate(videoId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Invalidates the user's cached scores now and again after commit, so a prediction computed
+     * from the pre-commit follow and view counts is not cached as fresh.
+     */
+    private void invalidatePredictions(UUID userId) {
+        predictionScoreCache.invalidateUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    predictionScoreCache.invalidateUser(userId);
+                }
+            });
+        }
     }
 
+    /**
+     * Buffers the comment_count delta once the transaction commits, so a rolled-back comment
+     * leaves the counter alone.
+     */
     private void updateCommentCount(UUID videoId, int delta) {
-        videoStatsRepository.findByVideoId(videoId).ifPresent(stats -> {
-            stats.setCommentCount(Math.max(0, stats.getCommentCount() + delta));
-            videoStatsRepository.save(stats);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            videoStatsCounterBuffer.add(videoId, VideoStatsCounterBuffer.Metric.COMMENT, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                videoStatsCounterBuffer.add(videoId, VideoStatsCounterBuffer.Metric.COMMENT, delta);
+            }
         });
     }
 
     private CommentResponse convertToResponse(Comment comment) {
         CommentResponse response = new CommentResponse();
         response.setId(comment.getId());
+        response.setParentId(comment.getParent() != null ? comment.getParent().getId() : null);
         response.setContent(comment.getContent());
         response.setCreatedAt(comment.getCreatedAt() != null
                 ? comment.getCreatedAt().toString()
@@ -158,26 +341,6 @@ public class SocialService {
         return response;
     }
 
-    private CommentResponse convertToResponseWithReplies(Comment comment) {
-        CommentResponse response = convertToResponse(comment);
-        List<Comment> replies = commentRepository.findByParentIdOrderByCreatedAtAsc(comment.getId());
-        if (!replies.isEmpty()) {
-            response.setReplies(replies.stream()
-                    .map(this::convertToResponseWithReplies)
-                    .collect(Collectors.toList()));
-        }
-        return response;
-    }
-
-    private int countCommentTree(UUID commentId) {
-        List<Comment> replies = commentRepository.findByParentIdOrderByCreatedAtAsc(commentId);
-        int total = 1;
-        for (Comment reply : replies) {
-            total += countCommentTree(reply.getId());
-        }
-        return total;
-    }
-
     // ==================== FOLLOW ====================
 
     @Transactional
@@ -186,6 +349,10 @@ public class SocialService {
             throw new RuntimeException("Cannot follow yourself");
         }
 
+        // Following changes the follower's follow range and the target's fans range
+        invalidatePredictions(followerId);
+        invalidatePredictions(followingId);
+
         if (followRepository.existsByFollowerIdAndFollowingId(followerId, followingId)) {
             followRepository.deleteByFollowerIdAndFollowingId(followerId, followingId);
             return false; // Unfollowed
@@ -219,10 +386,7 @@ public class SocialService {
                 .orElseThrow(() -> new RuntimeException("Video not found"));
 
         // Increment share count
-        videoStatsRepository.findByVideoId(videoId).ifPresent(stats -> {
-            stats.setShareCount(stats.getShareCount() + 1);
-            videoStatsRepository.save(stats);
-        });
+        videoStatsCounterBuffer.increment(videoId, VideoStatsCounterBuffer.Metric.SHARE);
 
         // Return deep link format
         return "videoapp://video/" + videoId;
@@ -285,14 +449,20 @@ public class SocialService {
             view.setWatchDuration((int) watchDuration);
             view.setIsCompleted(completed);
             videoViewRepository.save(view);
+
+            // Cached scores only go stale when the view moves the user into another
+            // active_degree bucket
+            long totalViews = videoViewRepository.countByUserId(user.getId());
+            for (long bound : RecommendationService.ACTIVE_DEGREE_VIEW_BOUNDS) {
+                if (totalViews == bound) {
+                    invalidatePredictions(userId);
+                    break;
+                }
+            }
         }
 
         // 2. Update views in Stats
-        videoStatsRepository.findByVideoId(videoId).ifPresent(stats -> {
-            stats.setViewCount(stats.getViewCount() + 1);
-            videoStatsRepository.save(stats);
-        });
-        System.out.println("View recorded for video " + videoId + " by user " + userId+" video: "+video.getNumericId()+" user: "+user.getNumericId());
+        videoStatsCounterBuffer.increment(videoId, VideoStatsCounterBuffer.Metric.VIEW);
         // 3. Log to CSV for AI training if we have user and video info
         if (video != null && user != null && video.getNumericId() != null && user.getNumericId() != null) {
             float totalDuration = video.getDurationSeconds() != null ? video.getDurationSeconds() : 30.0f;
@@ -310,4 +480,26 @@ public class SocialService {
             );
         }
     }
+
+    /**
+     * Keyset position of the last comment of a page, opaque to clients.
+     */
+    private record CommentCursor(LocalDateTime createdAt, UUID id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CommentCursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.indexOf(',');
+                return new CommentCursor(LocalDateTime.parse(value.substring(0, separator)),
+                        UUID.fromString(value.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid comment cursor");
+            }
+        }
+    }
 }
@@ -0,0 +1,315 @@
+package com.example.video.service;
+
+import com.example.video.model.TranscodeJob;
+import com.example.video.model.Video;
+import com.example.video.repository.TranscodeJobRepository;
+import com.example.video.repository.VideoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Transcodes uploaded videos into an HLS bitrate ladder stored next to the original in MinIO.
+ *
+ * Jobs are rows in {@code transcode_jobs}, so queued work survives restarts: the dispatcher
+ * claims the oldest queued job whenever one of {@code workers} slots is free, and jobs left
+ * {@code processing} by a crash are queued again on startup. A worker copies the source to a
+ * local work directory, probes its size with ffprobe, runs ffmpeg once per rendition no larger
+ * than the source (scaled on the short side, so portrait videos keep their ladder), and uploads
+ * segments and playlists under {@code hls/<videoId>/}. The master playlist is written last and
+ * only then recorded on the video, so a recorded playlist always has all its renditions.
+ * Failures are retried up to {@code max-attempts} times.
+ */
+@Service
+public class TranscodeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TranscodeService.class);
+
+    private static final String QUEUED = "queued";
+    private static final String PROCESSING = "processing";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
+
+    private static final int AUDIO_KBPS = 128;
+
+    @Value("${transcode.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${transcode.ffprobe-path:ffprobe}")
+    private String ffprobePath;
+
+    @Value("${transcode.workers:2}")
+    private int workers;
+
+    // short side:video kbps, highest first
+    @Value("${transcode.ladder:1080:5000,720:2800,480:1400,360:800}")
+    private String ladderSpec;
+
+    @Value("${transcode.segment-seconds:4}")
+    private int segmentSeconds;
+
+    @Value("${transcode.work-dir:/tmp/transcode}")
+    private String workDir;
+
+    @Value("${transcode.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${transcode.max-attempts:3}")
+    private int maxAttempts;
+
+    @Autowired
+    private TranscodeJobRepository jobRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    private List<Rung> ladder;
+    private JobWorkers pool;
+
+    @PostConstruct
+    void start() {
+        ladder = Stream.of(ladderSpec.split(","))
+                .map(String::trim)
+                .filter(spec -> !spec.isEmpty())
+                .map(spec -> spec.split(":"))
+                .map(parts -> new Rung(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())))
+                .sorted(Comparator.comparingInt(Rung::shortSide).reversed())
+                .toList();
+        pool = new JobWorkers("transcode-worker", workers,
+                () -> jobRepository.findFirstByStatusOrderByCreatedAtAsc(QUEUED).map(TranscodeJob::getId),
+                jobId -> jobRepository.transition(jobId, QUEUED, PROCESSING) > 0,
+                this::run);
+        if (enabled) {
+            int requeued = jobRepository.requeueProcessing();
+            if (requeued > 0) {
+                logger.info("Requeued {} transcode jobs interrupted by a restart", requeued);
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdown();
+    }
+
+    public void enqueue(Video video) {
+        if (!enabled) {
+            return;
+        }
+        TranscodeJob job = new TranscodeJob();
+        job.setVideo(video);
+        job.setStatus(QUEUED);
+        jobRepository.save(job);
+        dispatch();
+    }
+
+    /**
+     * Hands queued jobs to free workers. Called on enqueue, when a worker finishes, and
+     * periodically to pick up retries and jobs queued by other instances.
+     */
+    @Scheduled(fixedDelayString = "${transcode.poll-interval-ms:10000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        pool.dispatch();
+    }
+
+    private void run(UUID jobId) {
+        TranscodeJob job = jobRepository.findWithVideoById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        Video video = job.getVideo();
+        job.setAttempts(job.getAttempts() + 1);
+        job.setStatus(PROCESSING);
+        job.setStartedAt(LocalDateTime.now());
+        jobRepository.save(job);
+
+        Path dir = Paths.get(workDir, jobId.toString());
+        try {
+            Files.createDirectories(dir);
+            Path source = dir.resolve("source");
+            try (InputStream in = minioService.getFile(video.getVideoUrl())) {
+                Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            int[] size = probeSize(source, dir);
+            List<Rendition> renditions = selectRenditions(size[0], size[1]);
+            for (Rendition rendition : renditions) {
+                transcode(source, dir, rendition);
+            }
+            Path master = dir.resolve("master.m3u8");
+            Files.writeString(master, masterPlaylist(renditions), StandardCharsets.UTF_8);
+
+            String prefix = "hls/" + video.getId() + "/";
+            for (Rendition rendition : renditions) {
+                uploadDirectory(dir.resolve(rendition.name()), prefix + rendition.name() + "/");
+            }
+            minioService.uploadLocalFile(prefix + "master.m3u8", master, "application/vnd.apple.mpegurl");
+
+            videoRepository.updateHlsPlaylistUrl(video.getId(), prefix + "master.m3u8");
+            videoMetadataCache.invalidate(video.getId());
+
+            job.setStatus(COMPLETED);
+            job.setRenditions(renditions.stream().map(Rendition::name).collect(Collectors.joining(",")));
+            job.setPlaylistObject(prefix + "master.m3u8");
+            job.setErrorMessage(null);
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            logger.info("Transcoded video {} into {}", video.getId(), job.getRenditions());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // A job cut short by shutdown is queued again for the next start.
+            boolean retry = job.getAttempts() < maxAttempts || Thread.currentThread().isInterrupted();
+            logger.error("Transcoding video {} failed (attempt {}/{})", video.getId(), job.getAttempts(), maxAttempts, e);
+            job.setStatus(retry ? QUEUED : FAILED);
+            job.setErrorMessage(e.getMessage());
+            job.setCompletedAt(retry ? null : LocalDateTime.now());
+            jobRepository.save(job);
+        } finally {
+            JobWorkers.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Renditions whose short side does not exceed the source's; a source smaller than every rung
+     * gets the lowest rung at its own size. Dimensions are rounded to even numbers for x264.
+     */
+    private List<Rendition> selectRenditions(int width, int height) {
+        int shortSide = Math.min(width, height);
+        List<Rendition> renditions = new ArrayList<>();
+        for (Rung rung : ladder) {
+            if (rung.shortSide() <= shortSide) {
+                renditions.add(scaled(rung.shortSide(), rung.videoKbps(), width, height));
+            }
+        }
+        if (renditions.isEmpty()) {
+            Rung lowest = ladder.get(ladder.size() - 1);
+            renditions.add(scaled(shortSide, lowest.videoKbps(), width, height));
+        }
+        return renditions;
+    }
+
+    private static Rendition scaled(int shortSide, int videoKbps, int width, int height) {
+        double scale = (double) shortSide / Math.min(width, height);
+        int w = Math.max((int) Math.round(width * scale / 2) * 2, 2);
+        int h = Math.max((int) Math.round(height * scale / 2) * 2, 2);
+        return new Rendition(shortSide + "p", shortSide, w, h, videoKbps);
+    }
+
+    private int[] probeSize(Path source, Path dir) throws IOException, InterruptedException {
+        Path output = dir.resolve("ffprobe.log");
+        ExternalProcess.run(List.of(ffprobePath, "-v", "error", "-select_streams", "v:0",
+                "-show_entries", "stream=width,height", "-of", "csv=p=0:s=x", source.toString()), output, timeoutMinutes, TimeUnit.MINUTES);
+        String[] size = Files.readString(output, StandardCharsets.UTF_8).trim().split("x");
+        try {
+            return new int[]{Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim())};
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read video size from ffprobe output", e);
+        }
+    }
+
+    private void transcode(Path source, Path dir, Rendition rendition) throws IOException, InterruptedException {
+        Path out = Files.createDirectories(dir.resolve(rendition.name()));
+        List<String> command = List.of(
+                ffmpegPath, "-hide_banner", "-loglevel", "error", "-y",
+                "-i", source.toString(),
+                "-map", "0:v:0", "-map", "0:a:0?",
+                // Short side to the rung, evaluated on the (auto-rotated) frames.
+                "-vf", "scale='if(gt(iw,ih),-2," + rendition.shortSide() + ")':'if(gt(iw,ih)," + rendition.shortSide() + ",-2)'",
+                "-c:v", "libx264", "-preset", "veryfast", "-profile:v", "main",
+                "-b:v", rendition.videoKbps() + "k",
+                "-maxrate", (rendition.videoKbps() * 107 / 100) + "k",
+                "-bufsize", (rendition.videoKbps() * 3 / 2) + "k",
+                // Keyframes at segment boundaries so every rendition switches at the same points.
+                "-force_key_frames", "expr:gte(t,n_forced*" + segmentSeconds + ")",
+                "-sc_threshold", "0",
+                "-c:a", "aac", "-b:a", AUDIO_KBPS + "k", "-ac", "2",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_segment_filename", out.resolve("seg_%05d.ts").toString(),
+                out.resolve("index.m3u8").toString());
+        ExternalProcess.run(command, dir.resolve("ffmpeg-" + rendition.name() + ".log"), timeoutMinutes, TimeUnit.MINUTES);
+    }
+
+    private String masterPlaylist(List<Rendition> renditions) {
+        StringBuilder playlist = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+        for (Rendition rendition : renditions) {
+            long bandwidth = (rendition.videoKbps() * 107L / 100 + AUDIO_KBPS) * 1000L;
+            playlist.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth)
+                    .append(",RESOLUTION=").append(rendition.width()).append('x').append(rendition.height())
+                    .append('\n')
+                    .append(rendition.name()).append("/index.m3u8\n");
+        }
+        return playlist.toString();
+    }
+
+    private void uploadDirectory(Path dir, String prefix) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.sorted().toList();
+        }
+        // Segments before the playlist that references them.
+        for (Path file : files) {
+            if (file.toString().endsWith(".ts")) {
+                minioService.uploadLocalFile(prefix + file.getFileName(), file, "video/mp2t");
+            }
+        }
+        minioService.uploadLocalFile(prefix + "index.m3u8", dir.resolve("index.m3u8"), "application/vnd.apple.mpegurl");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("workers", workers);
+        stats.put("busyWorkers", pool.busyWorkers());
+        stats.put("queued", jobRepository.countByStatus(QUEUED));
+        stats.put("processing", jobRepository.countByStatus(PROCESSING));
+        stats.put("completed", jobRepository.countByStatus(COMPLETED));
+        stats.put("failed", jobRepository.countByStatus(FAILED));
+        stats.put("ladder", ladderSpec);
+        return stats;
+    }
+
+    private record Rung(int shortSide, int videoKbps) {
+    }
+
+    private record Rendition(String name, int shortSide, int width, int height, int videoKbps) {
+    }
+}
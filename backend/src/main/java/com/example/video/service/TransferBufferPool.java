@@ -0,0 +1,91 @@
+package com.example.video.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reusable copy buffers for streaming video bytes to the response.
+ *
+ * Spring writes an {@code InputStreamResource} body with {@link InputStream#transferTo}, which
+ * allocates a fresh 8 KiB buffer per response and copies in 8 KiB steps. Streams wrapped by
+ * {@link #pooled} override transferTo to borrow one large buffer for the whole copy instead. The
+ * pool keeps at most {@code max-pooled} idle buffers; under heavier concurrency extra buffers are
+ * allocated and dropped, which the stats report as allocations.
+ */
+@Service
+public class TransferBufferPool {
+
+    @Value("${video-stream.transfer-buffer.size:65536}")
+    private int bufferSize;
+
+    @Value("${video-stream.transfer-buffer.max-pooled:64}")
+    private int maxPooled;
+
+    private final Queue<byte[]> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+
+    public InputStream pooled(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public long transferTo(OutputStream out) throws IOException {
+                return copy(this.in, out);
+            }
+        };
+    }
+
+    private long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = borrow();
+        long total = 0;
+        try {
+            int n;
+            while ((n = in.read(buffer, 0, buffer.length)) >= 0) {
+                out.write(buffer, 0, n);
+                total += n;
+            }
+        } finally {
+            release(buffer);
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bufferSize", bufferSize);
+        stats.put("idle", idleCount.get());
+        stats.put("borrowed", borrowed.sum());
+        stats.put("allocated", allocated.sum());
+        return stats;
+    }
+
+    private byte[] borrow() {
+        borrowed.increment();
+        byte[] buffer = idle.poll();
+        if (buffer != null) {
+            idleCount.decrementAndGet();
+            return buffer;
+        }
+        allocated.increment();
+        return new byte[bufferSize];
+    }
+
+    private void release(byte[] buffer) {
+        if (idleCount.incrementAndGet() <= maxPooled) {
+            idle.offer(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.video.service;
+
+import com.example.video.model.UploadSession;
+import com.example.video.model.User;
+import com.example.video.model.Video;
+import com.example.video.repository.UploadSessionRepository;
+import com.example.video.repository.UserRepository;
+import com.example.video.repository.VideoRepository;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable uploads mapped one-to-one onto MinIO multipart uploads.
+ *
+ * Opening a session fixes the total size and cuts it into {@code chunk-size} parts; the client
+ * PUTs each part by number, in any order and in parallel, and retries only the parts that failed
+ * (the status lists those MinIO already holds). Completing the session checks every part against
+ * MinIO, completes the multipart upload and creates the {@link Video}. Sessions expire
+ * {@code ttl-hours} after they are opened; the sweep aborts their multipart uploads so MinIO
+ * drops the stored parts. Sessions left {@code completing} by a crash or {@code failed} after the
+ * object was assembled are swept {@code stuck-grace-minutes} after their deadline too, removing
+ * the assembled object unless a video uses it. Status changes go through a conditional update, so
+ * completion, abort and expiry never act on the same session twice.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    // S3 limits: parts other than the last must be at least 5 MiB, and at most 10000 parts.
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private static final String OPEN = "open";
+    private static final String COMPLETING = "completing";
+    private static final String COMPLETED = "completed";
+    private static final String ABORTED = "aborted";
+    private static final String EXPIRED = "expired";
+    private static final String FAILED = "failed";
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Value("${upload.session.chunk-size:8388608}")
+    private int chunkSize;
+
+    @Value("${upload.session.ttl-hours:24}")
+    private int ttlHours;
+
+    @Value("${upload.session.stuck-grace-minutes:60}")
+    private int stuckGraceMinutes;
+
+    private final Semaphore partPermits;
+
+    /**
+     * Each part in flight is held in memory once, so their number bounds the heap used by uploads.
+     */
+    public UploadSessionService(@Value("${upload.session.max-concurrent-parts:16}") int maxConcurrentParts) {
+        this.partPermits = new Semaphore(maxConcurrentParts);
+    }
+
+    public UploadSession open(String username,
+                              String title,
+                              String description,
+                              String originalFilename,
+                              String contentType,
+                              long totalSize) {
+        String objectName = videoService.prepareResumableUpload(contentType, originalFilename, title, totalSize);
+        String normalizedType = contentType.toLowerCase(Locale.ROOT);
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        int size = Math.max(chunkSize, MIN_CHUNK_SIZE);
+        long partCount = (totalSize + size - 1) / size;
+        if (partCount > MAX_PARTS) {
+            throw new RuntimeException("Video file exceeds the allowed upload size");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setUser(user);
+        session.setObjectName(objectName);
+        session.setUploadId(minioService.startMultipartUpload(objectName, normalizedType));
+        session.setTitle(title.trim());
+        session.setDescription(description == null ? null : description.trim());
+        session.setContentType(normalizedType);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(size);
+        session.setPartCount((int) partCount);
+        session.setStatus(OPEN);
+        session.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+        return uploadSessionRepository.save(session);
+    }
+
+    /**
+     * Stores part {@code partNumber} from the request body and returns its etag. Every part but
+     * the last must be exactly {@code chunkSize} bytes; re-sending a part replaces it.
+     */
+    public String uploadPart(UUID sessionId, String username, int partNumber, InputStream body, long contentLength) {
+        UploadSession session = getOpenSession(sessionId, username);
+        if (partNumber < 1 || partNumber > session.getPartCount()) {
+            throw new RuntimeException("Part number must be between 1 and " + session.getPartCount());
+        }
+        int expected = expectedPartSize(session, partNumber);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new RuntimeException("Part " + partNumber + " must be " + expected + " bytes");
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = partPermits.tryAcquire(30, TimeUnit.SECONDS);
+            if (!acquired) {
+                throw new RuntimeException("Too many parts uploading, retry later");
+            }
+            byte[] data = new byte[expected];
+            int read = body.readNBytes(data, 0, expected);
+            if (read != expected || body.read() != -1) {
+                throw new RuntimeException("Part " + partNumber + " must be " + expected + " bytes");
+            }
+            return minioService.uploadPart(session.getObjectName(), session.getUploadId(), partNumber, data, expected);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Upload interrupted", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading upload part", e);
+        } finally {
+            if (acquired) {
+                partPermits.release();
+            }
+        }
+    }
+
+    public Map<String, Object> getStatus(UUID sessionId, String username) {
+        UploadSession session = getSession(sessionId, username);
+        List<Integer> uploaded = new ArrayList<>();
+        if (OPEN.equals(session.getStatus())) {
+            for (Part part : minioService.listParts(session.getObjectName(), session.getUploadId())) {
+                uploaded.add(part.partNumber());
+            }
+        }
+        return toResponse(session, uploaded);
+    }
+
+    public Video complete(UUID sessionId, String username) {
+        UploadSession session = getOpenSession(sessionId, username);
+        if (uploadSessionRepository.transition(sessionId, OPEN, COMPLETING) == 0) {
+            throw new RuntimeException("Upload session is no longer open");
+        }
+
+        Part[] parts;
+        try {
+            parts = verifiedParts(session);
+            minioService.completeMultipartUpload(session.getObjectName(), session.getUploadId(), parts);
+        } catch (RuntimeException e) {
+            // Nothing is lost yet: the parts are still in MinIO and the client may retry.
+            uploadSessionRepository.transition(sessionId, COMPLETING, OPEN);
+            throw e;
+        }
+
+        try {
+            Video video = videoService.saveUploadedVideo(session.getObjectName(), session.getTotalSize(),
+                    session.getContentType(), session.getTitle(), session.getDescription(), session.getUser());
+            session.setStatus(COMPLETED);
+            session.setVideoId(video.getId());
+            uploadSessionRepository.save(session);
+            return video;
+        } catch (RuntimeException e) {
+            logger.error("Upload session {} stored {} but creating the video failed", sessionId, session.getObjectName(), e);
+            uploadSessionRepository.transition(sessionId, COMPLETING, FAILED);
+            throw e;
+        }
+    }
+
+    public void abort(UUID sessionId, String username) {
+        getSession(sessionId, username);
+        if (uploadSessionRepository.transition(sessionId, OPEN, ABORTED) == 0) {
+            throw new RuntimeException("Upload session is no longer open");
+        }
+        UploadSession session = uploadSessionRepository.findById(sessionId).orElseThrow();
+        abortQuietly(session);
+    }
+
+    /**
+     * Expires sessions past their deadline and aborts their multipart uploads, which makes MinIO
+     * discard the parts. Completing and failed sessions get a grace period, then their assembled
+     * object is removed as well if no video points at it.
+     */
+    @Scheduled(fixedDelayString = "${upload.session.cleanup-interval-ms:300000}")
+    public void expireSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        expire(OPEN, now, false);
+        expire(COMPLETING, now.minusMinutes(stuckGraceMinutes), true);
+        expire(FAILED, now.minusMinutes(stuckGraceMinutes), true);
+    }
+
+    private void expire(String status, LocalDateTime expiredBefore, boolean removeOrphanedObject) {
+        List<UploadSession> expired;
+        do {
+            expired = uploadSessionRepository.findTop100ByStatusAndExpiresAtBefore(status, expiredBefore);
+            for (UploadSession session : expired) {
+                if (uploadSessionRepository.transition(session.getId(), status, EXPIRED) == 1) {
+                    abortQuietly(session);
+                    if (removeOrphanedObject) {
+                        removeOrphanedObject(session);
+                    }
+                }
+            }
+        } while (expired.size() == 100);
+    }
+
+    private Part[] verifiedParts(UploadSession session) {
+        List<Part> stored = minioService.listParts(session.getObjectName(), session.getUploadId());
+        Part[] parts = new Part[session.getPartCount()];
+        for (Part part : stored) {
+            int number = part.partNumber();
+            if (number >= 1 && number <= parts.length && part.partSize() == expectedPartSize(session, number)) {
+                parts[number - 1] = new Part(number, part.etag());
+            }
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < parts.length && missing.size() < 20; i++) {
+            if (parts[i] == null) {
+                missing.add(i + 1);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Upload is missing parts " + missing);
+        }
+        return parts;
+    }
+
+    private int expectedPartSize(UploadSession session, int partNumber) {
+        if (partNumber < session.getPartCount()) {
+            return session.getChunkSize();
+        }
+        return (int) (session.getTotalSize() - (long) session.getChunkSize() * (session.getPartCount() - 1));
+    }
+
+    private UploadSession getOpenSession(UUID sessionId, String username) {
+        UploadSession session = getSession(sessionId, username);
+        if (!OPEN.equals(session.getStatus()) || session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Upload session is no longer open");
+        }
+        return session;
+    }
+
+    private UploadSession getSession(UUID sessionId, String username) {
+        return uploadSessionRepository.findByIdAndUserUsername(sessionId, username)
+                .orElseThrow(() -> new RuntimeException("Upload session not found"));
+    }
+
+    private void abortQuietly(UploadSession session) {
+        try {
+            minioService.abortMultipartUpload(session.getObjectName(), session.getUploadId());
+        } catch (RuntimeException e) {
+            logger.warn("Error aborting multipart upload of session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the object a session may have assembled before it got stuck, unless a video was
+     * created from it after all.
+     */
+    private void removeOrphanedObject(UploadSession session) {
+        try {
+            if (!videoRepository.existsByVideoUrl(session.getObjectName())) {
+                minioService.removeObject(session.getObjectName());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error removing object of upload session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> toResponse(UploadSession session, List<Integer> uploadedParts) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sessionId", session.getId());
+        response.put("status", session.getStatus());
+        response.put("totalSize", session.getTotalSize());
+        response.put("chunkSize", session.getChunkSize());
+        response.put("partCount", session.getPartCount());
+        response.put("uploadedParts", uploadedParts);
+        response.put("expiresAt", session.getExpiresAt());
+        response.put("videoId", session.getVideoId());
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.video.service;
+
+import com.example.video.repository.UserRepository;
+import com.example.video.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short TTL cache of username → {@link UserPrincipal}, for the requests that cannot take the
+ * principal from the token alone: tokens issued before they carried the user id and role. Misses
+ * (including unknown users) cost one users lookup; renames evict the old name.
+ */
+@Service
+public class UserPrincipalCache {
+
+    @Value("${security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Entry> principals = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Principal of {@code username}, or null if there is no such user.
+     */
+    public UserPrincipal get(String username) {
+        long now = System.nanoTime();
+        Entry entry = principals.get(username);
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.increment();
+            return entry.principal;
+        }
+
+        misses.increment();
+        UserPrincipal principal = userRepository.findByUsername(username)
+                .map(user -> new UserPrincipal(user.getId(), user.getUsername(), null, user.getRole()))
+                .orElse(null);
+        if (principals.size() < maxEntries || principals.containsKey(username)) {
+            principals.put(username, new Entry(principal, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        return principal;
+    }
+
+    public void evict(String username) {
+        principals.remove(username);
+    }
+
+    @Scheduled(fixedDelayString = "${security.principal-cache.cleanup-interval-ms:60000}")
+    public void pruneExpired() {
+        long now = System.nanoTime();
+        principals.values().removeIf(entry -> entry.expiresAt - now <= 0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", principals.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    private record Entry(UserPrincipal principal, long expiresAt) {
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.video.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Read-through disk cache of fixed-size video chunks in front of MinIO.
+ *
+ * Objects are split into chunks of {@code chunk-size} bytes, keyed by object name, etag and chunk
+ * index, so a re-uploaded object never serves old bytes. A missing chunk is fetched with one
+ * ranged GET, written to a file under the cache directory and memory-mapped; reads then copy
+ * straight from the mapping. Concurrent misses on the same chunk share one in-flight fill. The
+ * index lives in memory as an LRU bounded by total bytes, so the directory is cleared on startup.
+ *
+ * Evicted files are unlinked only after {@code delete-grace-seconds}: a sendfile response opens
+ * its file by path after the handler has returned, so an eviction in between must not remove it.
+ */
+@Service
+public class VideoSegmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoSegmentCache.class);
+
+    private static final Pattern UNSAFE_KEY_CHARS = Pattern.compile("[^A-Za-z0-9_-]");
+
+    @Value("${video-stream.segment-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video-stream.segment-cache.dir:/tmp/video-segments}")
+    private String cacheDir;
+
+    @Value("${video-stream.segment-cache.chunk-size:1048576}")
+    private int chunkSize;
+
+    @Value("${video-stream.segment-cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${video-stream.segment-cache.delete-grace-seconds:30}")
+    private long deleteGraceSeconds;
+
+    @Autowired
+    private MinioService minioService;
+
+    private final LinkedHashMap<String, Chunk> chunks = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<Chunk>> fills = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingDelete> pendingDeletes = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fillCount = new LongAdder();
+    private final LongAdder fillErrors = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesFromCache = new LongAdder();
+    private final LongAdder bytesFilled = new LongAdder();
+    private final Histogram fillLatencyMs = new Histogram(5, 10, 25, 50, 100, 250, 500, 1_000, 2_500);
+
+    private Path directory;
+    private long cachedBytes;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(cacheDir);
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> stale = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) stale::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Disabling video segment cache, {} is not usable: {}", directory, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stream of {@code length} bytes of the object starting at {@code offset}, served chunk by chunk
+     * from the cache. Chunks are fetched lazily as the stream is read.
+     */
+    public InputStream open(VideoService.VideoStreamMetadata metadata, long offset, long length) {
+        return new SegmentInputStream(metadata, offset, offset + length);
+    }
+
+    /**
+     * The cached file holding the whole range, when the range fits in a single chunk, so the bytes
+     * can be handed to sendfile. The chunk is filled first if it is not cached yet.
+     */
+    public Optional<FileRange> fileRange(VideoService.VideoStreamMetadata metadata, long offset, long length) {
+        if (!enabled || length <= 0 || offset / chunkSize != (offset + length - 1) / chunkSize) {
+            return Optional.empty();
+        }
+        long index = offset / chunkSize;
+        Lookup lookup = chunk(metadata, index);
+        if (!lookup.filled()) {
+            bytesFromCache.add(length);
+        }
+        long position = offset - index * chunkSize;
+        return Optional.of(new FileRange(lookup.chunk().file(), position, position + length));
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (chunks) {
+            stats.put("chunks", chunks.size());
+            stats.put("cachedBytes", cachedBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("chunkSize", chunkSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("bytesServedFromCache", bytesFromCache.sum());
+        stats.put("bytesFilledFromOrigin", bytesFilled.sum());
+        stats.put("fills", fillCount.sum());
+        stats.put("fillErrors", fillErrors.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("pendingDeletes", pendingDeletes.size());
+        stats.put("fillLatencyMs", fillLatencyMs.snapshot());
+        return stats;
+    }
+
+    /**
+     * The chunk, and whether this caller had to fetch it from MinIO itself.
+     */
+    Lookup chunk(VideoService.VideoStreamMetadata metadata, long index) {
+        String key = key(metadata, index);
+        Chunk cached;
+        synchronized (chunks) {
+            cached = chunks.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return new Lookup(cached, false);
+        }
+
+        misses.increment();
+        CompletableFuture<Chunk> fill = new CompletableFuture<>();
+        CompletableFuture<Chunk> inFlight = fills.putIfAbsent(key, fill);
+        if (inFlight != null) {
+            return new Lookup(join(inFlight), false);
+        }
+        try {
+            fill.complete(fill(metadata, index, key));
+        } catch (RuntimeException e) {
+            fill.completeExceptionally(e);
+        } finally {
+            fills.remove(key, fill);
+        }
+        return new Lookup(join(fill), true);
+    }
+
+    private Chunk fill(VideoService.VideoStreamMetadata metadata, long index, String key) {
+        synchronized (chunks) {
+            // Filled by another thread between our lookup and taking the fill slot.
+            Chunk cached = chunks.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        long start = index * chunkSize;
+        long length = Math.min(chunkSize, metadata.size() - start);
+        Path file = directory.resolve(key);
+        Path tmp = directory.resolve(key + ".tmp");
+        try {
+            try (InputStream in = minioService.getFile(metadata.objectName(), start, length)) {
+                long copied = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                if (copied != length) {
+                    throw new IOException("Expected " + length + " bytes, got " + copied);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            MappedByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            Chunk chunk = new Chunk(key, file, length, mapped);
+            fillCount.increment();
+            bytesFilled.add(length);
+            insert(chunk);
+            return chunk;
+        } catch (IOException e) {
+            fillErrors.increment();
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // Best effort; the directory is cleared on the next startup anyway.
+            }
+            throw new UncheckedIOException("Error caching chunk " + index + " of " + metadata.objectName(), e);
+        } catch (RuntimeException e) {
+            fillErrors.increment();
+            throw e;
+        } finally {
+            fillLatencyMs.record((System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+
+    private void insert(Chunk chunk) {
+        List<Chunk> evicted = new ArrayList<>();
+        synchronized (chunks) {
+            chunks.put(chunk.key(), chunk);
+            cachedBytes += chunk.length();
+            Iterator<Chunk> eldest = chunks.values().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Chunk candidate = eldest.next();
+                if (candidate == chunk) {
+                    break;
+                }
+                eldest.remove();
+                cachedBytes -= candidate.length();
+                evicted.add(candidate);
+            }
+        }
+        long deleteAfter = System.nanoTime() + TimeUnit.SECONDS.toNanos(deleteGraceSeconds);
+        for (Chunk old : evicted) {
+            evictions.increment();
+            pendingDeletes.add(new PendingDelete(old.file(), deleteAfter));
+        }
+    }
+
+    /**
+     * Unlinks evicted files whose grace period is over. Streams keep reading their mapping, and
+     * sendfile responses their open file, after the unlink.
+     */
+    @Scheduled(fixedDelayString = "${video-stream.segment-cache.delete-interval-ms:5000}")
+    public void deleteEvicted() {
+        long now = System.nanoTime();
+        PendingDelete next;
+        // Entries are queued in eviction order with the same grace, so the head is always due first.
+        while ((next = pendingDeletes.peek()) != null && now - next.deleteAfter() >= 0) {
+            pendingDeletes.poll();
+            try {
+                Files.deleteIfExists(next.file());
+            } catch (IOException e) {
+                logger.warn("Error deleting evicted chunk {}: {}", next.file(), e.getMessage());
+            }
+        }
+    }
+
+    private static Chunk join(CompletableFuture<Chunk> fill) {
+        try {
+            return fill.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    private static String key(VideoService.VideoStreamMetadata metadata, long index) {
+        String etag = metadata.etag() != null ? metadata.etag() : "";
+        return sanitize(metadata.objectName()) + "." + sanitize(etag) + "." + index + ".chunk";
+    }
+
+    private static String sanitize(String value) {
+        return UNSAFE_KEY_CHARS.matcher(value).replaceAll("_");
+    }
+
+    record Chunk(String key, Path file, long length, MappedByteBuffer buffer) {
+    }
+
+    record Lookup(Chunk chunk, boolean filled) {
+    }
+
+    private record PendingDelete(Path file, long deleteAfter) {
+    }
+
+    /**
+     * Byte range [start, end) of a cache file.
+     */
+    public record FileRange(Path file, long start, long end) {
+    }
+
+    private final class SegmentInputStream extends InputStream {
+        private final VideoService.VideoStreamMetadata metadata;
+        private final long end;
+        private long position;
+        private ByteBuffer current;
+        private boolean currentFilled;
+
+        private SegmentInputStream(VideoService.VideoStreamMetadata metadata, long offset, long end) {
+            this.metadata = metadata;
+            this.position = offset;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            if (current == null || !current.hasRemaining()) {
+                current = slice(position);
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(target, off, n);
+            position += n;
+            if (!currentFilled) {
+                bytesFromCache.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current != null ? current.remaining() : 0;
+        }
+
+        private ByteBuffer slice(long at) throws IOException {
+            long index = at / chunkSize;
+            long chunkStart = index * chunkSize;
+            Chunk chunk;
+            try {
+                Lookup lookup = chunk(metadata, index);
+                chunk = lookup.chunk();
+                currentFilled = lookup.filled();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            ByteBuffer view = chunk.buffer().duplicate();
+            view.limit((int) Math.min(chunk.length(), end - chunkStart));
+            view.position((int) (at - chunkStart));
+            return view;
+        }
+    }
+}
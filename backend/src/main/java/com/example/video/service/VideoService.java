@@ -39,6 +39,21 @@ public class VideoService {
     @Autowired
     private TagService tagService;
 
+    @Autowired
+    private TranscodeService transcodeService;
+
+    @Autowired
+    private MediaProbeService mediaProbeService;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    @Autowired
+    private VideoSegmentCache videoSegmentCache;
+
+    @Autowired
+    private TransferBufferPool transferBufferPool;
+
     @Value("${app.video.max-upload-size:250MB}")
     private DataSize maxUploadSize;
 
@@ -48,16 +63,60 @@ public class VideoService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        String fileName = buildObjectName(file);
+        String fileName = buildObjectName(file.getOriginalFilename());
         minioService.uploadFile(fileName, file);
 
+        return saveUploadedVideo(fileName, file.getSize(), file.getContentType(), title, description, user);
+    }
+
+    /**
+     * Streaming counterpart of {@link #uploadVideo}: the request body is the video itself and goes
+     * straight into a MinIO multipart upload, so nothing is spooled to disk first and transfer to
+     * MinIO starts with the first part.
+     */
+    public Video uploadVideoStream(InputStream body,
+                                   String contentType,
+                                   String originalFilename,
+                                   String title,
+                                   String description,
+                                   String username) {
+        validateUploadMetadata(contentType, title);
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        String fileName = buildObjectName(originalFilename);
+        long size = minioService.uploadStream(fileName, body, normalizeContentType(contentType), maxUploadSize.toBytes());
+
+        return saveUploadedVideo(fileName, size, contentType, title, description, user);
+    }
+
+    /**
+     * Validates a resumable upload before its session is opened and names the object it will
+     * become; the {@link Video} row is created by {@link #saveUploadedVideo} once it completes.
+     */
+    public String prepareResumableUpload(String contentType, String originalFilename, String title, long totalSize) {
+        if (totalSize <= 0) {
+            throw new RuntimeException("Video file is required");
+        }
+        if (totalSize > maxUploadSize.toBytes()) {
+            throw new RuntimeException("Video file exceeds the allowed upload size");
+        }
+        validateUploadMetadata(contentType, title);
+        return buildObjectName(originalFilename);
+    }
+
+    public Video saveUploadedVideo(String fileName, long size, String contentType, String title, String description, User user) {
         Video video = new Video();
         video.setTitle(title.trim());
         video.setDescription(description == null ? null : description.trim());
         video.setVideoUrl(fileName);
-        video.setThumbnailUrl(null);
-        video.setFileSize(file.getSize());
-        video.setFormat(normalizeContentType(file.getContentType()));
+        // Probed before the row exists, so later saves of the entity carry the values along.
+        MediaProbeService.MediaInfo media = mediaProbeService.probe(fileName);
+        video.setThumbnailUrl(media.thumbnailUrl());
+        video.setDurationSeconds(media.durationSeconds());
+        video.setFileSize(size);
+        video.setFormat(normalizeContentType(contentType));
         video.setUser(user);
         video.setStatus(VideoStatus.active);
         int count = (int) videoRepository.count();
@@ -66,6 +125,7 @@ public class VideoService {
         Video saved = videoRepository.save(video);
         tagService.assignHashtagsToVideo(saved, saved.getTitle(), saved.getDescription(), user.getId());
         aiAnalysisService.analyzeVideo(saved.getId());
+        transcodeService.enqueue(saved);
         return saved;
     }
 
@@ -74,30 +134,54 @@ public class VideoService {
     }
 
     public VideoStreamResource getVideoStreamResource(UUID videoId, long offset, long requestedLength) {
-        Video video = getVideo(videoId);
-        VideoStreamMetadata metadata = buildStreamMetadata(video);
+        return getVideoStreamResource(getVideoStreamMetadata(videoId), offset, requestedLength);
+    }
 
+    public VideoStreamResource getVideoStreamResource(VideoStreamMetadata metadata, long offset, long requestedLength) {
         long totalLength = metadata.size();
         long safeOffset = Math.min(Math.max(offset, 0), Math.max(totalLength - 1, 0));
         long contentLength = requestedLength > 0
                 ? Math.min(requestedLength, totalLength - safeOffset)
                 : totalLength - safeOffset;
 
-        InputStream stream = minioService.getFile(video.getVideoUrl(), safeOffset, contentLength);
-        String contentType = normalizeContentType(
-                StringUtils.hasText(metadata.contentType()) ? metadata.contentType() : video.getFormat());
+        InputStream stream = transferBufferPool.pooled(videoSegmentCache.isEnabled()
+                ? videoSegmentCache.open(metadata, safeOffset, contentLength)
+                : minioService.getFile(metadata.objectName(), safeOffset, contentLength));
 
         return new VideoStreamResource(
                 stream,
                 safeOffset,
                 contentLength,
                 totalLength,
-                contentType,
+                metadata.contentType(),
                 metadata.objectName());
     }
 
+    /**
+     * Cache file holding the whole range, for handing it to sendfile instead of streaming it.
+     */
+    public Optional<VideoSegmentCache.FileRange> findCachedFileRange(VideoStreamMetadata metadata, long offset, long length) {
+        return videoSegmentCache.fileRange(metadata, offset, length);
+    }
+
+    /**
+     * Served from {@link VideoMetadataCache}; only a miss reads the video row and stats the object.
+     */
     public VideoStreamMetadata getVideoStreamMetadata(UUID videoId) {
-        return buildStreamMetadata(getVideo(videoId));
+        return videoMetadataCache.get(videoId, id -> buildStreamMetadata(getVideo(id)));
+    }
+
+    /**
+     * Opens an HLS object (playlist or segment) of a transcoded video; {@code path} is relative
+     * to the directory of its master playlist.
+     */
+    public InputStream getHlsObject(VideoStreamMetadata metadata, String path) {
+        String playlist = metadata.hlsPlaylist();
+        return minioService.getFile(playlist.substring(0, playlist.lastIndexOf('/') + 1) + path);
+    }
+
+    public InputStream getThumbnail(String name, String file) {
+        return minioService.getFile("thumbnails/" + name + "/" + file);
     }
 
     public Video getVideo(UUID videoId) {
@@ -109,22 +193,26 @@ public class VideoService {
         if (file == null || file.isEmpty()) {
             throw new RuntimeException("Video file is required");
         }
-        if (!StringUtils.hasText(title)) {
-            throw new RuntimeException("Video title is required");
-        }
         if (file.getSize() > maxUploadSize.toBytes()) {
             throw new RuntimeException("Video file exceeds the allowed upload size");
         }
+        validateUploadMetadata(file.getContentType(), title);
+    }
+
+    private void validateUploadMetadata(String rawContentType, String title) {
+        if (!StringUtils.hasText(title)) {
+            throw new RuntimeException("Video title is required");
+        }
 
-        String contentType = normalizeContentType(file.getContentType());
+        String contentType = normalizeContentType(rawContentType);
         boolean supportedType = SUPPORTED_VIDEO_TYPE_PREFIXES.stream().anyMatch(contentType::startsWith);
         if (!supportedType) {
             throw new RuntimeException("Unsupported video format");
         }
     }
 
-    private String buildObjectName(MultipartFile file) {
-        String originalName = Optional.ofNullable(file.getOriginalFilename()).orElse("upload.mp4");
+    private String buildObjectName(String originalFilename) {
+        String originalName = StringUtils.hasText(originalFilename) ? originalFilename : "upload.mp4";
         String cleanName = StringUtils.cleanPath(originalName).replace("\\", "_").replace("/", "_");
         String extension = "";
         int extensionIndex = cleanName.lastIndexOf('.');
@@ -145,7 +233,9 @@ public class VideoService {
         MinioService.StoredObjectInfo metadata = minioService.statObject(video.getVideoUrl());
         String contentType = normalizeContentType(
                 StringUtils.hasText(metadata.contentType()) ? metadata.contentType() : video.getFormat());
-        return new VideoStreamMetadata(metadata.size(), contentType, metadata.objectName());
+        return new VideoStreamMetadata(
+                metadata.size(), contentType, metadata.objectName(), metadata.etag(), metadata.lastModified(),
+                video.getHlsPlaylistUrl());
     }
 
     public static class VideoStreamResource {
@@ -195,6 +285,11 @@ public class VideoService {
         }
     }
 
-    public record VideoStreamMetadata(long size, String contentType, String objectName) {
+    /**
+     * Stored object metadata; {@code etag} is the unquoted MinIO etag, {@code lastModified} epoch millis.
+     * {@code hlsPlaylist} is the master playlist object, or null until the video is transcoded.
+     */
+    public record VideoStreamMetadata(long size, String contentType, String objectName, String etag, long lastModified,
+                                      String hlsPlaylist) {
     }
 }
@@ -0,0 +1,141 @@
+package com.example.video.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for the view/comment/share counters in video_stats.
+ *
+ * Events add to an in-memory delta per video instead of doing SELECT + UPDATE on the stats row.
+ * Deltas are kept in a ConcurrentHashMap and updated with compute(), so concurrent events on the
+ * same video serialize only on that map bin, and a flush can remove a video's deltas atomically
+ * without losing events that race with it. The flush applies everything as one JDBC batch of
+ * relative UPDATEs; deltas of a failed flush are merged back and retried on the next run.
+ */
+@Service
+public class VideoStatsCounterBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoStatsCounterBuffer.class);
+
+    private static final String FLUSH_SQL = """
+            UPDATE video_stats
+            SET view_count = COALESCE(view_count, 0) + ?,
+                comment_count = GREATEST(COALESCE(comment_count, 0) + ?, 0),
+                share_count = COALESCE(share_count, 0) + ?
+            WHERE video_id = ?
+            """;
+
+    public enum Metric { VIEW, COMMENT, SHARE }
+
+    private static final int METRICS = Metric.values().length;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<UUID, long[]> pending = new ConcurrentHashMap<>();
+    private final LongAdder recordedEvents = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final Histogram flushLatencyMs = new Histogram(1, 5, 10, 25, 50, 100, 250, 500, 1_000);
+
+    public void increment(UUID videoId, Metric metric) {
+        add(videoId, metric, 1);
+    }
+
+    public void add(UUID videoId, Metric metric, long delta) {
+        if (videoId == null || delta == 0) {
+            return;
+        }
+        pending.compute(videoId, (id, deltas) -> {
+            long[] result = deltas != null ? deltas : new long[METRICS];
+            result[metric.ordinal()] += delta;
+            return result;
+        });
+        recordedEvents.increment();
+    }
+
+    /**
+     * Not-yet-flushed delta for the video, to be added to the value read from video_stats.
+     */
+    public long getPending(UUID videoId, Metric metric) {
+        long[] snapshot = new long[1];
+        pending.computeIfPresent(videoId, (id, deltas) -> {
+            snapshot[0] = deltas[metric.ordinal()];
+            return deltas;
+        });
+        return snapshot[0];
+    }
+
+    @Scheduled(fixedDelayString = "${video-stats.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int remaining = pending.size();
+        flush();
+        logger.info("Flushed buffered video stats for {} videos on shutdown", remaining);
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, long[]> drained = new HashMap<>();
+        for (UUID videoId : pending.keySet()) {
+            pending.computeIfPresent(videoId, (id, deltas) -> {
+                drained.put(id, deltas);
+                return null;
+            });
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(drained.size());
+        drained.forEach((videoId, deltas) -> batch.add(new Object[]{
+                deltas[Metric.VIEW.ordinal()],
+                deltas[Metric.COMMENT.ordinal()],
+                deltas[Metric.SHARE.ordinal()],
+                videoId
+        }));
+
+        long startedAt = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            flushedRows.add(batch.size());
+        } catch (Exception e) {
+            failedFlushes.increment();
+            logger.warn("Failed to flush video stats for {} videos, will retry", drained.size(), e);
+            drained.forEach((videoId, deltas) -> pending.merge(videoId, deltas, (current, failed) -> {
+                for (int i = 0; i < METRICS; i++) {
+                    current[i] += failed[i];
+                }
+                return current;
+            }));
+        } finally {
+            flushLatencyMs.record((System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingVideos", pending.size());
+        stats.put("recordedEvents", recordedEvents.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("flushLatencyMs", flushLatencyMs.snapshot());
+        return stats;
+    }
+}
@@ -0,0 +1,18 @@
+-- Master playlist of the HLS renditions, set once transcoding completes
+ALTER TABLE videos ADD COLUMN IF NOT EXISTS hls_playlist_url VARCHAR(255);
+
+CREATE TABLE IF NOT EXISTS transcode_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    video_id UUID NOT NULL REFERENCES videos(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'queued' CHECK (status IN ('queued', 'processing', 'completed', 'failed')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    renditions VARCHAR(100),
+    playlist_object VARCHAR(255),
+    error_message TEXT,
+    started_at TIMESTAMP WITH TIME ZONE,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transcode_jobs_status_created ON transcode_jobs(status, created_at);
+CREATE INDEX IF NOT EXISTS idx_transcode_jobs_video ON transcode_jobs(video_id);
@@ -0,0 +1,10 @@
+-- Priority lanes and retry backoff for the persistent AI analysis queue
+ALTER TABLE ai_analysis_jobs ADD COLUMN IF NOT EXISTS priority VARCHAR(10) NOT NULL DEFAULT 'normal';
+ALTER TABLE ai_analysis_jobs ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE ai_analysis_jobs ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP WITH TIME ZONE;
+
+ALTER TABLE ai_analysis_jobs DROP CONSTRAINT IF EXISTS ai_analysis_jobs_priority_check;
+ALTER TABLE ai_analysis_jobs
+ADD CONSTRAINT ai_analysis_jobs_priority_check CHECK (priority IN ('high', 'normal', 'low'));
+
+CREATE INDEX IF NOT EXISTS idx_ai_jobs_queued ON ai_analysis_jobs(priority, created_at) WHERE status = 'queued';
@@ -0,0 +1,6 @@
+-- Keyset pagination of comments on (created_at, id): all comments of a video, and its top-level threads
+CREATE INDEX IF NOT EXISTS idx_comments_video_created ON comments(video_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_comments_video_top_level ON comments(video_id, created_at DESC, id DESC) WHERE parent_id IS NULL;
+
+-- Covered by idx_comments_video_created
+DROP INDEX IF EXISTS idx_comments_video;
@@ -40,6 +40,7 @@ CREATE TABLE IF NOT EXISTS videos (
     category_id INTEGER DEFAULT 0,
     format VARCHAR(20),
     file_size BIGINT,
+    hls_playlist_url VARCHAR(255),
     status VARCHAR(20) DEFAULT 'pending' CHECK (status IN ('pending', 'active', 'failed', 'banned', 'reviewing')),
     search_vector TSVECTOR,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -137,7 +138,8 @@ CREATE INDEX IF NOT EXISTS idx_likes_user ON likes(user_id);
 CREATE INDEX IF NOT EXISTS idx_likes_video ON likes(video_id);
 CREATE INDEX IF NOT EXISTS idx_video_reposts_user_created_at ON video_reposts(user_id, created_at DESC);
 CREATE INDEX IF NOT EXISTS idx_video_reposts_video ON video_reposts(video_id);
-CREATE INDEX IF NOT EXISTS idx_comments_video ON comments(video_id);
+CREATE INDEX IF NOT EXISTS idx_comments_video_created ON comments(video_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_comments_video_top_level ON comments(video_id, created_at DESC, id DESC) WHERE parent_id IS NULL;
 CREATE INDEX IF NOT EXISTS idx_comments_user ON comments(user_id);
 CREATE INDEX IF NOT EXISTS idx_comments_parent ON comments(parent_id);
 CREATE INDEX IF NOT EXISTS idx_video_views_video ON video_views(video_id);
@@ -251,6 +253,9 @@ CREATE TABLE IF NOT EXISTS ai_analysis_jobs (
     model_name VARCHAR(100) NOT NULL,
     model_version VARCHAR(50),
     status VARCHAR(20) NOT NULL DEFAULT 'queued' CHECK (status IN ('queued', 'processing', 'completed', 'failed')),
+    priority VARCHAR(10) NOT NULL DEFAULT 'normal' CHECK (priority IN ('high', 'normal', 'low')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE,
     scenes_detected INTEGER,
     result_summary JSONB,
     error_message TEXT,
@@ -259,6 +264,38 @@ CREATE TABLE IF NOT EXISTS ai_analysis_jobs (
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- HLS transcoding jobs (one per upload; retried up to transcode.max-attempts)
+CREATE TABLE IF NOT EXISTS transcode_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    video_id UUID NOT NULL REFERENCES videos(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'queued' CHECK (status IN ('queued', 'processing', 'completed', 'failed')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    renditions VARCHAR(100),
+    playlist_object VARCHAR(255),
+    error_message TEXT,
+    started_at TIMESTAMP WITH TIME ZONE,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Resumable upload sessions (one MinIO multipart upload each)
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    object_name VARCHAR(255) NOT NULL,
+    upload_id VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    content_type VARCHAR(100) NOT NULL,
+    total_size BIGINT NOT NULL,
+    chunk_size INTEGER NOT NULL,
+    part_count INTEGER NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'open' CHECK (status IN ('open', 'completing', 'completed', 'aborted', 'expired', 'failed')),
+    video_id UUID REFERENCES videos(id) ON DELETE SET NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Moderation Queue
 CREATE TABLE IF NOT EXISTS moderation_queue (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
@@ -308,6 +345,10 @@ CREATE INDEX IF NOT EXISTS idx_video_tags_tag ON video_tags(tag_id);
 CREATE INDEX IF NOT EXISTS idx_video_tags_tag_video ON video_tags(tag_id, video_id);
 CREATE INDEX IF NOT EXISTS idx_ai_jobs_video ON ai_analysis_jobs(video_id);
 CREATE INDEX IF NOT EXISTS idx_ai_jobs_status ON ai_analysis_jobs(status);
+CREATE INDEX IF NOT EXISTS idx_ai_jobs_queued ON ai_analysis_jobs(priority, created_at) WHERE status = 'queued';
+CREATE INDEX IF NOT EXISTS idx_transcode_jobs_status_created ON transcode_jobs(status, created_at);
+CREATE INDEX IF NOT EXISTS idx_transcode_jobs_video ON transcode_jobs(video_id);
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_status_expires ON upload_sessions(status, expires_at);
 CREATE INDEX IF NOT EXISTS idx_mod_queue_status ON moderation_queue(status);
 CREATE INDEX IF NOT EXISTS idx_mod_queue_video ON moderation_queue(video_id);
 CREATE INDEX IF NOT EXISTS idx_mod_actions_queue ON moderation_actions(queue_id);
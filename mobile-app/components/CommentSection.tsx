@@ -30,8 +30,9 @@ const MIN_SHEET_HEIGHT = 320;
 const DEFAULT_SHEET_RATIO = 0.72;
 const SHEET_TOP_GAP = 16;
 
+// Threads report their full size in replyCount even when only a preview of the replies is loaded
 const countNestedComments = (items: CommentItem[]): number =>
-  items.reduce((total, item) => total + 1 + countNestedComments(item.replies || []), 0);
+  items.reduce((total, item) => total + 1 + (item.replyCount ?? countNestedComments(item.replies || [])), 0);
 
 const formatDate = (dateString: string) => {
   const date = new Date(dateString);
@@ -52,23 +53,27 @@ export default function CommentSection({ videoId, visible, onClose, onCommentsCo
   const listRef = useRef<FlatList<CommentItem>>(null);
   const [comments, setComments] = useState<CommentItem[]>([]);
   const [newComment, setNewComment] = useState('');
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [sending, setSending] = useState(false);
   const [replyTo, setReplyTo] = useState<CommentItem | null>(null);
 
   const totalComments = useMemo(() => countNestedComments(comments), [comments]);
 
   useEffect(() => {
-    if (visible) {
+    // Only the last page makes the count exact
+    if (visible && !nextCursor) {
       onCommentsCountChange?.(totalComments);
     }
-  }, [onCommentsCountChange, totalComments, visible]);
+  }, [nextCursor, onCommentsCountChange, totalComments, visible]);
 
   const fetchComments = useCallback(async () => {
     setLoading(true);
     try {
-      const data = await api.getComments(videoId, true);
-      setComments(data);
+      const page = await api.getComments(videoId, true);
+      setComments(page.comments);
+      setNextCursor(page.nextCursor ?? null);
     } catch (error) {
       console.error('Error fetching comments:', error);
     } finally {
@@ -76,6 +81,34 @@ export default function CommentSection({ videoId, visible, onClose, onCommentsCo
     }
   }, [videoId]);
 
+  const loadMoreComments = useCallback(async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+
+    setLoadingMore(true);
+    try {
+      const page = await api.getComments(videoId, true, nextCursor);
+      setComments((current) => [...current, ...page.comments]);
+      setNextCursor(page.nextCursor ?? null);
+    } catch (error) {
+      console.error('Error fetching more comments:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  }, [loadingMore, nextCursor, videoId]);
+
+  const loadAllReplies = useCallback(async (commentId: string) => {
+    try {
+      const replies = await api.getCommentReplies(commentId);
+      setComments((current) =>
+        current.map((comment) => (comment.id === commentId ? { ...comment, replies } : comment))
+      );
+    } catch (error) {
+      console.error('Error fetching replies:', error);
+    }
+  }, []);
+
   useEffect(() => {
     if (visible) {
       void fetchComments();
@@ -146,10 +179,18 @@ export default function CommentSection({ videoId, visible, onClose, onCommentsCo
               {item.replies.map((reply) => renderComment(reply, depth + 1))}
             </View>
           ) : null}
+
+          {item.replyCount !== undefined && item.replyCount > (item.replies?.length ?? 0) ? (
+            <TouchableOpacity onPress={() => void loadAllReplies(item.id)} hitSlop={8}>
+              <Text style={styles.moreReplies}>
+                View {item.replyCount - (item.replies?.length ?? 0)} more replies
+              </Text>
+            </TouchableOpacity>
+          ) : null}
         </View>
       );
     },
-    []
+    [loadAllReplies]
   );
 
   if (!visible) {
@@ -182,7 +223,10 @@ export default function CommentSection({ videoId, visible, onClose, onCommentsCo
           <View style={styles.header}>
             <View style={styles.handle} />
             <View style={styles.headerRow}>
-              <Text style={styles.title}>Comments ({totalComments})</Text>
+              <Text style={styles.title}>
+                Comments ({totalComments}
+                {nextCursor ? '+' : ''})
+              </Text>
               <TouchableOpacity onPress={onClose} hitSlop={8}>
                 <Text style={styles.closeButton}>Close</Text>
               </TouchableOpacity>
@@ -206,6 +250,11 @@ export default function CommentSection({ videoId, visible, onClose, onCommentsCo
                 keyboardDismissMode={Platform.OS === 'ios' ? 'interactive' : 'on-drag'}
                 showsVerticalScrollIndicator={false}
                 removeClippedSubviews={false}
+                onEndReached={() => void loadMoreComments()}
+                onEndReachedThreshold={0.5}
+                ListFooterComponent={
+                  loadingMore ? <ActivityIndicator style={styles.listFooter} size="small" color="#FF3B30" /> : null
+                }
                 ListEmptyComponent={<Text style={styles.emptyText}>No comments yet. Be the first!</Text>}
               />
             )}
@@ -388,6 +437,16 @@ const styles = StyleSheet.create({
     fontSize: 12,
     fontWeight: '700',
   },
+  moreReplies: {
+    color: '#9a9a9a',
+    fontSize: 12,
+    fontWeight: '600',
+    marginTop: 8,
+    marginLeft: 46,
+  },
+  listFooter: {
+    marginVertical: 12,
+  },
   childrenWrap: {
     marginTop: 10,
     paddingLeft: 8,
@@ -55,7 +55,15 @@ export interface CommentItem {
     username: string;
     avatarUrl?: string;
   };
+  parentId?: string;
   replies?: CommentItem[];
+  // Size of the whole thread when replies only holds a preview of it
+  replyCount?: number;
+}
+
+export interface CommentPage {
+  comments: CommentItem[];
+  nextCursor?: string | null;
 }
 
 export interface ProfileData {
@@ -331,8 +339,20 @@ export const addComment = async (videoId: string, content: string, parentId?: st
   return response.data;
 };
 
-export const getComments = async (videoId: string, nested: boolean = true): Promise<CommentItem[]> => {
-  const response = await api.get(`/social/comments/${videoId}`, { params: { nested } });
+export const getComments = async (
+  videoId: string,
+  nested: boolean = true,
+  cursor?: string | null,
+  limit: number = 20
+): Promise<CommentPage> => {
+  const response = await api.get(`/social/comments/${videoId}`, {
+    params: { nested, limit, ...(cursor ? { cursor } : {}) },
+  });
+  return response.data;
+};
+
+export const getCommentReplies = async (commentId: string): Promise<CommentItem[]> => {
+  const response = await api.get(`/social/comment/${commentId}/replies`);
   return response.data;
 };
 
@@ -44,6 +44,9 @@ class PredictRequest(BaseModel):
     user_profile: UserProfile
     video_candidates: List[VideoCandidate]
 
+class BatchPredictRequest(BaseModel):
+    requests: List[PredictRequest]
+
 # --- Helper Logic ---
 def load_model_metadata():
     """
@@ -108,11 +111,7 @@ def startup_event():
         model.eval()
         print("Initialized model with random weights due to loading error.")
 
-@app.post("/predict")
-async def predict(req: PredictRequest):
-    if model is None:
-        raise HTTPException(status_code=503, detail="Model not loaded")
-    
+def score_candidates(req: PredictRequest):
     results = []
     # Logic chuyển đổi từ Request sang Tensor đầu vào cho Model
     # Gợi ý: Lặp qua video_candidates và thực hiện inference
@@ -123,8 +122,25 @@ async def predict(req: PredictRequest):
             "candidate_id": video.candidate_id,
             "predicted_watch_time": round(video.duration_seconds * 0.45, 2) # Ví dụ
         })
-    
-    return {"status": "success", "predictions": results}
+    return results
+
+@app.post("/predict")
+async def predict(req: PredictRequest):
+    if model is None:
+        raise HTTPException(status_code=503, detail="Model not loaded")
+
+    return {"status": "success", "predictions": score_candidates(req)}
+
+@app.post("/predict/batch")
+async def predict_batch(batch: BatchPredictRequest):
+    """Scores several users' candidate lists in one call; results keep the request order."""
+    if model is None:
+        raise HTTPException(status_code=503, detail="Model not loaded")
+
+    return {
+        "status": "success",
+        "results": [{"status": "success", "predictions": score_candidates(req)} for req in batch.requests],
+    }
 
 if __name__ == "__main__":
     import uvicorn